@@ -0,0 +1,182 @@
+package de.l3s.lsdmproject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import de.l3s.lsdmproject.dgim.DGIMSummary;
+
+
+/**
+ * The state of {@link CountingHashTags} after processing a source file up to a certain byte offset, so that a restarted job can
+ * resume from there instead of processing the whole file again.<br />
+ * A checkpoint contains the parameters of the counters, the hashtags in the order of their counters, the summaries of all DGIM
+ * counters, the time of the stream clock and the source file's length and offset. It is written to a temporary file first and
+ * then moved to its final location, so a crash during writing keeps the previous checkpoint.
+ *
+ * @author Sebastian
+ *
+ */
+public class CountingCheckpoint
+{
+
+  private static final int MAGIC = 0x4C534350;
+
+  private static final int VERSION = 2;
+
+  final long sourceLength;
+  final long offset;
+  final long tweetCount;
+
+  final boolean caseInsensitive;
+  final boolean countWindows;
+  final long n;
+  final int r;
+
+  final String[] hashtags;
+  final DGIMSummary[] summaries;
+
+  final long clockTime;
+
+
+  CountingCheckpoint(final long sourceLength, final long offset, final long tweetCount, final boolean caseInsensitive,
+      final boolean countWindows, final long n, final int r, final String[] hashtags, final DGIMSummary[] summaries,
+      final long clockTime)
+  {
+    this.sourceLength = sourceLength;
+    this.offset = offset;
+    this.tweetCount = tweetCount;
+    this.caseInsensitive = caseInsensitive;
+    this.countWindows = countWindows;
+    this.n = n;
+    this.r = r;
+    this.hashtags = hashtags;
+    this.summaries = summaries;
+    this.clockTime = clockTime;
+  }
+
+
+  /**
+   * Position in the source file to resume at.
+   */
+  public long getOffset()
+  {
+    return offset;
+  }
+
+
+  /**
+   * Number of Tweets processed up to the offset.
+   */
+  public long getTweetCount()
+  {
+    return tweetCount;
+  }
+
+
+  /**
+   * Checks that the checkpoint was written for the given source file and counters.
+   */
+  void checkMatches(final File sourceFile, final boolean caseInsensitive, final boolean countWindows, final long n, final int r,
+      final String[] hashtags)
+  {
+    if (sourceFile.length() < sourceLength)
+    {
+      throw new IllegalArgumentException("Checkpoint was written for a longer source file (" + sourceLength + " bytes).");
+    }
+    else if (this.caseInsensitive != caseInsensitive || this.countWindows != countWindows || this.n != n || this.r != r)
+    {
+      throw new IllegalArgumentException("Checkpoint was written for different parameters (case insensitive: "
+          + this.caseInsensitive + ", count windows: " + this.countWindows + ", n: " + this.n + ", r: " + this.r + ").");
+    }
+    else if (!Arrays.equals(this.hashtags, hashtags))
+    {
+      throw new IllegalArgumentException("Checkpoint was written for different hashtags " + Arrays.toString(this.hashtags) + ".");
+    }
+  }
+
+
+  public void write(final File file)
+    throws IOException
+  {
+    final File temporaryFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile))))
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(sourceLength);
+      out.writeLong(offset);
+      out.writeLong(tweetCount);
+      out.writeBoolean(caseInsensitive);
+      out.writeBoolean(countWindows);
+      out.writeLong(n);
+      out.writeInt(r);
+      out.writeLong(clockTime);
+      out.writeInt(hashtags.length);
+      for (int i = 0; i < hashtags.length; i++)
+      {
+        out.writeUTF(hashtags[i]);
+        summaries[i].write(out);
+      }
+    }
+
+    try
+    {
+      Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (AtomicMoveNotSupportedException e)
+    {
+      Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+
+  public static CountingCheckpoint read(final File file)
+    throws IOException
+  {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+    {
+      if (in.readInt() != MAGIC)
+      {
+        throw new IOException(file.getAbsolutePath() + " is not a checkpoint.");
+      }
+
+      final int version = in.readInt();
+      if (version != VERSION)
+      {
+        throw new IOException("Unsupported version " + version + " of checkpoint " + file.getAbsolutePath() + ".");
+      }
+
+      final long sourceLength = in.readLong();
+      final long offset = in.readLong();
+      final long tweetCount = in.readLong();
+      final boolean caseInsensitive = in.readBoolean();
+      final boolean countWindows = in.readBoolean();
+      final long n = in.readLong();
+      final int r = in.readInt();
+      final long clockTime = in.readLong();
+      final int counterCount = in.readInt();
+
+      final String[] hashtags = new String[counterCount];
+      final DGIMSummary[] summaries = new DGIMSummary[counterCount];
+      for (int i = 0; i < counterCount; i++)
+      {
+        hashtags[i] = in.readUTF();
+        summaries[i] = DGIMSummary.read(in);
+      }
+
+      return new CountingCheckpoint(sourceLength, offset, tweetCount, caseInsensitive, countWindows, n, r, hashtags, summaries,
+          clockTime);
+    }
+  }
+
+}
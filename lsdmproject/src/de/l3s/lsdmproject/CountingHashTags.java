@@ -1,257 +1,877 @@
-package de.l3s.lsdmproject;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.NoSuchElementException;
-import java.util.Set;
-
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonSyntaxException;
-
-import de.l3s.lsdmproject.baseline.NaiiveCount;
-import de.l3s.lsdmproject.dgim.DGIMCount;
-import de.l3s.lsdmproject.model.Tweet;
-import de.l3s.lsdmproject.utils.StopWatch;
-
-
-public class CountingHashTags
-{
-
-  final boolean caseInsensitive;
-  final String[] hashtags;
-  final long n;
-
-  final DGIMCount[] dgimCounters;
-  final NaiiveCount[] naiiveCounters;
-  final HashMap<String, DGIMCount> mappedDgimCounters = new HashMap<>();
-  final HashMap<String, NaiiveCount> mappedNaiiveCounters = new HashMap<>();
-
-
-  public CountingHashTags(final Set<String> hashtags, final boolean caseInsensitive, final long n)
-  {
-    this.caseInsensitive = caseInsensitive;
-    this.hashtags = hashtags.toArray(new String[hashtags.size()]);
-    this.n = n;
-
-    // Instantiate counters
-    dgimCounters = new DGIMCount[this.hashtags.length];
-    naiiveCounters = new NaiiveCount[this.hashtags.length];
-    int i = 0;
-    for (String hashtag : this.hashtags)
-    {
-      dgimCounters[i] = new DGIMCount(this.n, hashtag);
-      mappedDgimCounters.put(hashtag, dgimCounters[i]);
-      naiiveCounters[i] = new NaiiveCount(n, hashtag);
-      mappedNaiiveCounters.put(hashtag, naiiveCounters[i]);
-      i++;
-    }
-  }
-
-
-  public static void main(String[] args)
-    throws JsonSyntaxException, IOException
-  {
-    final String sourceFile = "E:/tagging-ide/lsdm16/ebola.json";
-    final String[] hashtags = { "ebola", "WHO", "SierraLeone" };
-    final boolean caseInsensitive = true;
-    final long n = System.currentTimeMillis(); // Capture everything
-    final long[] ks = { 2 * 86400 * 1000, 7 * 86400 * 1000, 365 * 86400 * 1000 };
-    final boolean withActualCount = true;
-
-    System.out.println("[CountingHashTags]");
-    System.out.println("------------------");
-    System.out.println("From file:              " + sourceFile);
-    System.out.println("For Hashtags:           " + Arrays.toString(hashtags));
-    System.out.println("Case insensitive:       " + Boolean.toString(caseInsensitive));
-    System.out.println("Counting timespans (k): " + Arrays.toString(ks) + " milliseconds");
-    System.out.println("Max Timespan (n):       " + n + " milliseconds");
-    System.out.println("Compare to actual:      " + Boolean.toString(withActualCount));
-    System.out.println("------------------");
-
-    System.out.println("");
-
-    final CountingHashTags cht = new CountingHashTags(new HashSet<String>(Arrays.asList(hashtags)), caseInsensitive, n);
-
-    System.out.println("Processing source file...");
-    final StopWatch readInsertTimer = new StopWatch("Processing source file");
-    final long tweets = cht.analyzeTwitterFile(sourceFile, withActualCount);
-    System.out.println(tweets + " Tweets parsed");
-    System.out.println(readInsertTimer.printEnd());
-    System.out.println("");
-    System.out.println("");
-
-    final StopWatch[] stopWatches = new StopWatch[ks.length * hashtags.length];
-    int i = 0;
-    for (long k : ks)
-    {
-      for (String hashtag : hashtags)
-      {
-        stopWatches[i] = new StopWatch("Counting of " + Arrays.toString(hashtags) + " at " + k + " milliseconds");
-        showFrequency(k, withActualCount, cht, hashtag);
-        System.out.println("-----------");
-        System.out.println("Runtime: " + stopWatches[i].diffString() + " milliseconds");
-        System.out.println("");
-        System.out.println("");
-        i++;
-      }
-
-    }
-  }
-
-
-  public static void showFrequency(final long k, final boolean withActualCount, final CountingHashTags cht,
-      final String counterName)
-  {
-    final DGIMCount dgim = cht.getCounterForName(counterName);
-    final long approx = dgim.count(k);
-
-    if (withActualCount)
-    {
-      final NaiiveCount naiive = cht.getActualCounterForName(counterName, k);
-      final long actual = naiive.count(k);
-      final double err = (approx - actual) / (double) actual * 100.0;
-
-      System.out.println("Count #" + counterName + " @ T-" + Long.toString(k) + " milliseconds");
-      System.out.println("-----------");
-      System.out.println("DGIM:       " + approx);
-      System.out.println("Actual:     " + actual);
-      System.out.println("Abs. Error: " + (approx - actual));
-      System.out.println("Rel. Error: " + String.format("%.3f", err) + "%");
-    }
-    else
-    {
-      System.out.println("Count #" + counterName + " @ T-" + Long.toString(k) + " milliseconds");
-      System.out.println("-----------");
-      System.out.println(approx + " times");
-    }
-  }
-
-
-  public DGIMCount getCounterForName(final String name)
-  {
-    if (!mappedDgimCounters.containsKey(name))
-    {
-      throw new NoSuchElementException("No counter for '" + name + "'.");
-    }
-
-    return mappedDgimCounters.get(name);
-  }
-
-
-  public NaiiveCount getActualCounterForName(final String name, final long k)
-  {
-    if (!mappedNaiiveCounters.containsKey(name))
-    {
-      throw new NoSuchElementException("No counter for '" + name + "'.");
-    }
-
-    return mappedNaiiveCounters.get(name);
-  }
-
-
-  private long analyzeTwitterFileWithoutActualCount(final String sourcePath)
-    throws JsonSyntaxException, IOException
-  {
-    final File sourceFile = new File(sourcePath);
-    if (!sourceFile.isFile())
-    {
-      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
-    }
-
-    try (FileReader fr = new FileReader(sourceFile); BufferedReader br = new BufferedReader(fr))
-    {
-      final Gson gson = new GsonBuilder().create();
-      long tweetcount = 0;
-      long invalidCount = 0;
-      String line;
-      while ((line = br.readLine()) != null)
-      {
-        tweetcount++;
-        final Tweet t = gson.fromJson(line, Tweet.class);
-
-        if (t.getTimestampMs() == -1)
-        {
-          System.out.println("Warning: Tweet with null timestamp ignored");
-          invalidCount++;
-          continue;
-        }
-
-        for (int h = 0; h < hashtags.length; h++)
-        {
-          final boolean contained = t.isHashtagContained(hashtags[h], caseInsensitive);
-          dgimCounters[h].insert(t.getTimestampMs(), contained);
-        }
-      }
-
-      return tweetcount;
-    }
-    catch (FileNotFoundException e)
-    {
-      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
-    }
-  }
-
-
-  public long analyzeTwitterFile(final String sourcePath, final boolean withActualCount)
-    throws JsonSyntaxException, IOException
-  {
-    if (withActualCount)
-    {
-      return analyzeTwitterFileWithActualCount(sourcePath);
-    }
-    else
-    {
-      return analyzeTwitterFileWithoutActualCount(sourcePath);
-    }
-  }
-
-
-  private long analyzeTwitterFileWithActualCount(final String sourcePath)
-    throws JsonSyntaxException, IOException
-  {
-    final File sourceFile = new File(sourcePath);
-    if (!sourceFile.isFile())
-    {
-      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
-    }
-
-    try (FileReader fr = new FileReader(sourceFile); BufferedReader br = new BufferedReader(fr))
-    {
-      final Gson gson = new GsonBuilder().create();
-      long tweetcount = 0;
-      String line;
-      while ((line = br.readLine()) != null)
-      {
-        tweetcount++;
-        final Tweet t = gson.fromJson(line, Tweet.class);
-
-        if (t.getTimestampMs() == -1)
-        {
-          System.out.println("Warning: Tweet with null timestamp ignored");
-          continue;
-        }
-
-        for (int h = 0; h < hashtags.length; h++)
-        {
-          final boolean contained = t.isHashtagContained(hashtags[h], caseInsensitive);
-          dgimCounters[h].insert(t.getTimestampMs(), contained);
-          naiiveCounters[h].insert(t, contained);
-        }
-      }
-
-      return tweetcount;
-    }
-    catch (FileNotFoundException e)
-    {
-      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
-    }
-  }
-
-}
+package de.l3s.lsdmproject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.gson.JsonSyntaxException;
+
+import de.l3s.lsdmproject.baseline.ExactCount;
+import de.l3s.lsdmproject.dgim.ConcurrentDGIMCount;
+import de.l3s.lsdmproject.dgim.ConcurrentStreamClock;
+import de.l3s.lsdmproject.dgim.DGIMArrayCount;
+import de.l3s.lsdmproject.dgim.DGIMCount;
+import de.l3s.lsdmproject.dgim.DGIMSummary;
+import de.l3s.lsdmproject.dgim.SlidingWindowCounter;
+import de.l3s.lsdmproject.dgim.StreamClock;
+import de.l3s.lsdmproject.dgim.WindowEstimate;
+import de.l3s.lsdmproject.ingest.ChunkListener;
+import de.l3s.lsdmproject.ingest.EventLog;
+import de.l3s.lsdmproject.ingest.EventLogReader;
+import de.l3s.lsdmproject.ingest.LineHandler;
+import de.l3s.lsdmproject.ingest.LineParser;
+import de.l3s.lsdmproject.ingest.MappedLineSource;
+import de.l3s.lsdmproject.ingest.MatchedTweet;
+import de.l3s.lsdmproject.ingest.MatchingTweetParser;
+import de.l3s.lsdmproject.ingest.ReorderBuffer;
+import de.l3s.lsdmproject.model.HashtagDictionary;
+import de.l3s.lsdmproject.monitor.EstimateSink;
+import de.l3s.lsdmproject.monitor.StandingQueries;
+import de.l3s.lsdmproject.monitor.StandingQuery;
+import de.l3s.lsdmproject.utils.StopWatch;
+
+
+public class CountingHashTags
+{
+
+  /**
+   * Magic number and version of the files written by {@link #writeSummaries(File)}.
+   */
+  private static final int SUMMARIES_MAGIC = 0x4C534453;
+  private static final int SUMMARIES_VERSION = 1;
+
+  final boolean caseInsensitive;
+  final String[] hashtags;
+  final long n;
+
+  /**
+   * Maps each hashtag to the index of its counters.
+   */
+  final HashtagDictionary dictionary;
+
+  /**
+   * Shared by all counters, so that a Tweet only has to be inserted into the counters of its matching hashtags.
+   */
+  final StreamClock clock;
+
+  final CounterType counterType;
+
+  final int bucketsPerSize;
+
+  final WindowType windowType;
+
+  /**
+   * Emitted on the ingest thread, whenever the clock has advanced.
+   */
+  final StandingQueries standingQueries = new StandingQueries();
+
+  /**
+   * Allowed lateness of out-of-order Tweets, or -1 if Tweets are counted in the order of the source file.
+   */
+  private long allowedLateness = -1;
+
+  private int reorderCapacity;
+
+  private long droppedTweets = 0;
+
+  private File checkpointFile = null;
+
+  private long checkpointInterval;
+
+  final SlidingWindowCounter[] dgimCounters;
+  final ExactCount[] exactCounters;
+  final HashMap<String, SlidingWindowCounter> mappedDgimCounters = new HashMap<>();
+  final HashMap<String, ExactCount> mappedExactCounters = new HashMap<>();
+
+
+  public CountingHashTags(final Set<String> hashtags, final boolean caseInsensitive, final long n)
+  {
+    this(hashtags, caseInsensitive, n, CounterType.ARRAY);
+  }
+
+
+  public CountingHashTags(final Set<String> hashtags, final boolean caseInsensitive, final long n,
+      final CounterType counterType)
+  {
+    this(hashtags, caseInsensitive, n, counterType, DGIMCount.DEFAULT_BUCKETS_PER_SIZE);
+  }
+
+
+  /**
+   * @param r
+   *          Maximum number of DGIM buckets per size, see {@link DGIMCount#bucketsPerSizeForError(double)}.
+   */
+  public CountingHashTags(final Set<String> hashtags, final boolean caseInsensitive, final long n,
+      final CounterType counterType, final int r)
+  {
+    this(hashtags, caseInsensitive, n, counterType, r, WindowType.TIME);
+  }
+
+
+  /**
+   * @param n
+   *          Maximum window, in milliseconds or Tweets depending on the window type.
+   * @param r
+   *          Maximum number of DGIM buckets per size, see {@link DGIMCount#bucketsPerSizeForError(double)}.
+   */
+  public CountingHashTags(final Set<String> hashtags, final boolean caseInsensitive, final long n,
+      final CounterType counterType, final int r, final WindowType windowType)
+  {
+    this.caseInsensitive = caseInsensitive;
+    this.hashtags = hashtags.toArray(new String[hashtags.size()]);
+    this.n = n;
+    this.counterType = counterType;
+    this.bucketsPerSize = r;
+    this.windowType = windowType;
+    this.clock = counterType == CounterType.CONCURRENT ? new ConcurrentStreamClock() : new StreamClock();
+
+    this.dictionary = new HashtagDictionary(caseInsensitive);
+    for (String hashtag : this.hashtags)
+    {
+      dictionary.intern(hashtag);
+    }
+
+    // Instantiate counters, hashtags that are equal ignoring case share their counters in case-insensitive mode
+    dgimCounters = new SlidingWindowCounter[dictionary.size()];
+    exactCounters = new ExactCount[dictionary.size()];
+    for (String hashtag : this.hashtags)
+    {
+      final int id = dictionary.lookup(hashtag);
+      if (dgimCounters[id] == null)
+      {
+        dgimCounters[id] = createCounter(counterType, n, hashtag, clock, r);
+        exactCounters[id] = new ExactCount(n, hashtag, clock);
+      }
+      mappedDgimCounters.put(hashtag, dgimCounters[id]);
+      mappedExactCounters.put(hashtag, exactCounters[id]);
+    }
+  }
+
+
+  static SlidingWindowCounter createCounter(final CounterType counterType, final long n, final String hashtag,
+      final StreamClock clock, final int r)
+  {
+    if (counterType == CounterType.CHAIN)
+    {
+      return new DGIMCount(n, hashtag, clock, r);
+    }
+    else if (counterType == CounterType.CONCURRENT)
+    {
+      return new ConcurrentDGIMCount(n, hashtag, clock, Runtime.getRuntime().availableProcessors(), r);
+    }
+    else
+    {
+      return new DGIMArrayCount(n, hashtag, clock, r);
+    }
+  }
+
+
+  public static void main(String[] args)
+    throws JsonSyntaxException, IOException
+  {
+    final String sourceFile = "E:/tagging-ide/lsdm16/ebola.json";
+    final String[] hashtags = { "ebola", "WHO", "SierraLeone" };
+    final boolean caseInsensitive = true;
+    final long n = System.currentTimeMillis(); // Capture everything
+    final long[] ks = { 2 * 86400 * 1000, 7 * 86400 * 1000, 365 * 86400 * 1000 };
+    final boolean withActualCount = true;
+
+    System.out.println("[CountingHashTags]");
+    System.out.println("------------------");
+    System.out.println("From file:              " + sourceFile);
+    System.out.println("For Hashtags:           " + Arrays.toString(hashtags));
+    System.out.println("Case insensitive:       " + Boolean.toString(caseInsensitive));
+    System.out.println("Counting timespans (k): " + Arrays.toString(ks) + " milliseconds");
+    System.out.println("Max Timespan (n):       " + n + " milliseconds");
+    System.out.println("Compare to actual:      " + Boolean.toString(withActualCount));
+    System.out.println("------------------");
+
+    System.out.println("");
+
+    final CountingHashTags cht = new CountingHashTags(new HashSet<String>(Arrays.asList(hashtags)), caseInsensitive, n);
+
+    System.out.println("Processing source file...");
+    final StopWatch readInsertTimer = new StopWatch("Processing source file");
+    final long tweets = cht.analyzeTwitterFile(sourceFile, withActualCount);
+    System.out.println(tweets + " Tweets parsed");
+    System.out.println(readInsertTimer.printEnd());
+    System.out.println("");
+    System.out.println("");
+
+    final StopWatch queryTimer = new StopWatch("Counting of " + Arrays.toString(hashtags) + " at " + Arrays.toString(ks));
+    final HashMap<String, WindowEstimate[]> estimates = new HashMap<>();
+    for (String hashtag : hashtags)
+    {
+      estimates.put(hashtag, cht.countAll(hashtag, ks));
+    }
+    System.out.println(queryTimer.printEnd());
+    System.out.println("");
+
+    for (int i = 0; i < ks.length; i++)
+    {
+      for (String hashtag : hashtags)
+      {
+        showFrequency(estimates.get(hashtag)[i], withActualCount, cht, hashtag);
+        System.out.println("-----------");
+        System.out.println("");
+        System.out.println("");
+      }
+
+    }
+  }
+
+
+  public static void showFrequency(final long k, final boolean withActualCount, final CountingHashTags cht,
+      final String counterName)
+  {
+    final WindowEstimate estimate = cht.getCounterForName(counterName).count(new long[] { k })[0];
+    showFrequency(estimate, withActualCount, cht, counterName);
+  }
+
+
+  /**
+   * Prints an estimate of {@link #countAll(String, long[])}.
+   */
+  public static void showFrequency(final WindowEstimate estimate, final boolean withActualCount, final CountingHashTags cht,
+      final String counterName)
+  {
+    final long k = estimate.getK();
+    final long approx = estimate.getEstimate();
+
+    if (withActualCount)
+    {
+      final long actual = cht.getActualCounterForName(counterName, k).count(k);
+      final double err = (approx - actual) / (double) actual * 100.0;
+
+      System.out.println("Count #" + counterName + " @ T-" + Long.toString(k) + " " + cht.getWindowUnit());
+      System.out.println("-----------");
+      System.out.println("DGIM:       " + approx);
+      System.out.println("Bounds:     " + estimate.getLowerBound() + " - " + estimate.getUpperBound());
+      System.out.println("Actual:     " + actual);
+      System.out.println("Abs. Error: " + (approx - actual));
+      System.out.println("Rel. Error: " + String.format("%.3f", err) + "%");
+    }
+    else
+    {
+      System.out.println("Count #" + counterName + " @ T-" + Long.toString(k) + " " + cht.getWindowUnit());
+      System.out.println("-----------");
+      System.out.println(approx + " times (" + estimate.getLowerBound() + " - " + estimate.getUpperBound() + ")");
+    }
+  }
+
+
+  /**
+   * Counts the occurrences of a hashtag within several windows in a single pass over its DGIM buckets.
+   */
+  public WindowEstimate[] countAll(final String name, final long[] ks)
+  {
+    return getCounterForName(name).count(ks);
+  }
+
+
+  /**
+   * Registers a standing query, that emits the count of a hashtag within the latest k milliseconds (or Tweets, see
+   * {@link WindowType}) every interval while a source file is processed.
+   */
+  public StandingQuery registerStandingQuery(final String name, final long k, final long interval, final EstimateSink sink)
+  {
+    if (k > n)
+    {
+      throw new IllegalArgumentException("Value of k must be less than or equal to maximum stream length n (" + n + ").");
+    }
+
+    return standingQueries.register(name, getCounterForName(name), k, interval, sink);
+  }
+
+
+  public SlidingWindowCounter getCounterForName(final String name)
+  {
+    if (!mappedDgimCounters.containsKey(name))
+    {
+      throw new NoSuchElementException("No counter for '" + name + "'.");
+    }
+
+    return mappedDgimCounters.get(name);
+  }
+
+
+  /**
+   * Estimated number of bytes occupied by the buckets of all DGIM counters.
+   */
+  public long getMemoryEstimate()
+  {
+    long bytes = 0;
+    for (SlidingWindowCounter counter : dgimCounters)
+    {
+      bytes += counter.getMemoryEstimate();
+    }
+
+    return bytes;
+  }
+
+
+  /**
+   * Writes the summaries of all DGIM counters to a file, e.g. to merge them with the summaries of other partitions later on. The
+   * window type is written as well, as the times of count-based windows are positions in the stream instead of milliseconds.
+   */
+  public void writeSummaries(final File file)
+    throws IOException
+  {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+    {
+      out.writeInt(SUMMARIES_MAGIC);
+      out.writeInt(SUMMARIES_VERSION);
+      out.writeBoolean(windowType == WindowType.COUNT);
+      out.writeInt(dgimCounters.length);
+      for (SlidingWindowCounter counter : dgimCounters)
+      {
+        counter.toSummary().write(out);
+      }
+    }
+  }
+
+
+  /**
+   * Reads the summaries written by {@link #writeSummaries(File)}.
+   *
+   * @param windowType
+   *          The window type the summaries are expected to be written with.
+   */
+  public static List<DGIMSummary> readSummaries(final File file, final WindowType windowType)
+    throws IOException
+  {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+    {
+      if (in.readInt() != SUMMARIES_MAGIC)
+      {
+        throw new IOException(file.getAbsolutePath() + " is not a summary file.");
+      }
+
+      final int version = in.readInt();
+      if (version != SUMMARIES_VERSION)
+      {
+        throw new IOException("Unsupported version " + version + " of summary file " + file.getAbsolutePath() + ".");
+      }
+
+      final boolean countWindows = in.readBoolean();
+      if (countWindows != (windowType == WindowType.COUNT))
+      {
+        throw new IllegalArgumentException("Summaries of " + file.getAbsolutePath() + " were written for "
+            + (countWindows ? "count-based" : "time-based") + " windows.");
+      }
+
+      final int count = in.readInt();
+      final ArrayList<DGIMSummary> summaries = new ArrayList<>();
+      for (int i = 0; i < count; i++)
+      {
+        summaries.add(DGIMSummary.read(in));
+      }
+
+      return summaries;
+    }
+  }
+
+
+  public ExactCount getActualCounterForName(final String name, final long k)
+  {
+    if (!mappedExactCounters.containsKey(name))
+    {
+      throw new NoSuchElementException("No counter for '" + name + "'.");
+    }
+
+    return mappedExactCounters.get(name);
+  }
+
+
+  private long analyzeTwitterFileWithoutActualCount(final String sourcePath)
+    throws JsonSyntaxException, IOException
+  {
+    final File sourceFile = new File(sourcePath);
+    if (!sourceFile.isFile())
+    {
+      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
+    }
+
+    return processSourceFile(sourceFile, false, new LineHandler<MatchedTweet>()
+    {
+
+      @Override
+      public void handle(final MatchedTweet t)
+      {
+        final long timestamp = t.getTimestampMs();
+
+        if (timestamp == -1)
+        {
+          System.out.println("Warning: Tweet with null timestamp ignored");
+          return;
+        }
+
+        // Counters of other hashtags only need the clock to advance
+        final long time = nextStreamTime(timestamp);
+        clock.advance(time);
+        for (final int h : t.getMatches())
+        {
+          dgimCounters[h].insert(time, true);
+        }
+        standingQueries.advance(clock.getTime());
+      }
+
+    });
+  }
+
+
+  public long analyzeTwitterFile(final String sourcePath, final boolean withActualCount)
+    throws JsonSyntaxException, IOException
+  {
+    if (withActualCount)
+    {
+      return analyzeTwitterFileWithActualCount(sourcePath);
+    }
+    else
+    {
+      return analyzeTwitterFileWithoutActualCount(sourcePath);
+    }
+  }
+
+
+  private long analyzeTwitterFileWithActualCount(final String sourcePath)
+    throws JsonSyntaxException, IOException
+  {
+    final File sourceFile = new File(sourcePath);
+    if (!sourceFile.isFile())
+    {
+      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
+    }
+
+    return processSourceFile(sourceFile, true, new LineHandler<MatchedTweet>()
+    {
+
+      @Override
+      public void handle(final MatchedTweet t)
+      {
+        final long timestamp = t.getTimestampMs();
+
+        if (timestamp == -1)
+        {
+          System.out.println("Warning: Tweet with null timestamp ignored");
+          return;
+        }
+
+        // Counters of other hashtags only need the clock to advance
+        final long time = nextStreamTime(timestamp);
+        clock.advance(time);
+        for (final int h : t.getMatches())
+        {
+          dgimCounters[h].insert(time, true);
+          exactCounters[h].insert(time, true);
+        }
+        standingQueries.advance(clock.getTime());
+      }
+
+    });
+  }
+
+
+  /**
+   * Returns the time of the next Tweet in the stream. For count-based windows, this is its position in the stream, i.e. the clock
+   * is a sequence counter shared by all counters.
+   */
+  private long nextStreamTime(final long timestamp)
+  {
+    if (windowType == WindowType.COUNT)
+    {
+      return clock.getTime() + 1;
+    }
+    else
+    {
+      return timestamp;
+    }
+  }
+
+
+  /**
+   * Unit of the window sizes n and k.
+   */
+  public String getWindowUnit()
+  {
+    return windowType == WindowType.COUNT ? "Tweets" : "milliseconds";
+  }
+
+
+  /**
+   * Parses a file of JSON encoded Tweets or replays an event log, depending on the format of the file.
+   */
+  private long processSourceFile(final File sourceFile, final boolean withActualCount,
+      final LineHandler<MatchedTweet> handler)
+    throws IOException
+  {
+    if (windowType == WindowType.COUNT && counterType == CounterType.CONCURRENT)
+    {
+      throw new IllegalArgumentException("Count-based windows are not supported with concurrent counters.");
+    }
+
+    if (allowedLateness < 0)
+    {
+      return processSourceFileInOrder(sourceFile, withActualCount, handler);
+    }
+    else if (checkpointFile != null || counterType == CounterType.CONCURRENT)
+    {
+      throw new IllegalArgumentException("Reordering is not supported with checkpoints and concurrent counters.");
+    }
+
+    // Counters only accept timestamps in order, later Tweets would move the clock past earlier ones
+    final ReorderBuffer buffer = new ReorderBuffer(allowedLateness, reorderCapacity, handler);
+    final long tweets = processSourceFileInOrder(sourceFile, withActualCount, buffer);
+    buffer.flush();
+    droppedTweets += buffer.getDroppedCount();
+    if (buffer.getForcedCount() > 0)
+    {
+      System.out.println("Warning: Reorder buffer full, " + buffer.getForcedCount() + " Tweets released early");
+    }
+
+    return tweets;
+  }
+
+
+  private long processSourceFileInOrder(final File sourceFile, final boolean withActualCount,
+      final LineHandler<MatchedTweet> handler)
+    throws IOException
+  {
+    // The exact counters only need the timestamps as well, so Tweets are never materialized
+    final MatchingTweetParser parser = new MatchingTweetParser(dictionary, false);
+
+    if (checkpointFile != null && (withActualCount || counterType == CounterType.CONCURRENT || EventLog.isEventLog(sourceFile)))
+    {
+      throw new IllegalArgumentException(
+          "Checkpoints are only supported for JSON source files, without actual counts and concurrent counters.");
+    }
+
+    if (EventLog.isEventLog(sourceFile))
+    {
+      return parser.replay(new EventLogReader(sourceFile), handler);
+    }
+    else if (counterType == CounterType.CONCURRENT && !withActualCount)
+    {
+      // Concurrent counters are updated right away by the parsing threads
+      return new MappedLineSource(sourceFile).process(new LineParser<MatchedTweet>()
+      {
+
+        @Override
+        public MatchedTweet parse(final ByteBuffer buffer, final int begin, final int end)
+        {
+          final MatchedTweet t = parser.parse(buffer, begin, end);
+          if (t.getTimestampMs() == -1 || t.getMatches().length == 0)
+          {
+            return t;
+          }
+
+          clock.advance(t.getTimestampMs());
+          for (final int h : t.getMatches())
+          {
+            dgimCounters[h].insert(t.getTimestampMs(), true);
+          }
+
+          return new MatchedTweet(t.getTimestampMs(), MatchedTweet.NO_MATCHES, null);
+        }
+
+      }, handler);
+    }
+    else if (checkpointFile != null)
+    {
+      return processWithCheckpoints(sourceFile, parser, handler);
+    }
+    else
+    {
+      return new MappedLineSource(sourceFile).process(parser, handler);
+    }
+  }
+
+
+  /**
+   * Resumes from the checkpoint file, if it exists, and writes checkpoints while processing the source file.
+   */
+  private long processWithCheckpoints(final File sourceFile, final MatchingTweetParser parser,
+      final LineHandler<MatchedTweet> handler)
+    throws IOException
+  {
+    long startOffset = 0;
+    long restoredTweets = 0;
+    if (checkpointFile.isFile())
+    {
+      final CountingCheckpoint checkpoint = CountingCheckpoint.read(checkpointFile);
+      restoreCheckpoint(sourceFile, checkpoint);
+      startOffset = checkpoint.getOffset();
+      restoredTweets = checkpoint.getTweetCount();
+      System.out.println("Resuming from checkpoint at byte " + startOffset + " (" + restoredTweets + " Tweets)");
+    }
+
+    try (final CheckpointWriter writer = new CheckpointWriter(sourceFile.length(), startOffset, restoredTweets))
+    {
+      final long tweets = new MappedLineSource(sourceFile).process(parser, handler, startOffset, writer);
+      writer.finish();
+
+      return restoredTweets + tweets;
+    }
+  }
+
+
+  private void restoreCheckpoint(final File sourceFile, final CountingCheckpoint checkpoint)
+  {
+    checkpoint.checkMatches(sourceFile, caseInsensitive, windowType == WindowType.COUNT, n, bucketsPerSize,
+        getCounterHashtags());
+
+    for (int i = 0; i < dgimCounters.length; i++)
+    {
+      dgimCounters[i].restore(checkpoint.summaries[i]);
+    }
+    clock.advance(checkpoint.clockTime);
+  }
+
+
+  /**
+   * Returns the (canonical) hashtags in the order of the counters.
+   */
+  private String[] getCounterHashtags()
+  {
+    final String[] counterHashtags = new String[dictionary.size()];
+    for (int i = 0; i < counterHashtags.length; i++)
+    {
+      counterHashtags[i] = dictionary.getHashtag(i);
+    }
+
+    return counterHashtags;
+  }
+
+
+  /**
+   * Enables checkpoints. Processing a source file resumes from the checkpoint file, if it exists, and updates it whenever another
+   * interval of the source file has been processed. Checkpoints are only supported for JSON source files, without actual counts
+   * and concurrent counters.
+   *
+   * @param intervalBytes
+   *          Minimum number of bytes of the source file processed between two checkpoints.
+   */
+  public void enableCheckpoints(final File file, final long intervalBytes)
+  {
+    if (intervalBytes < 1)
+    {
+      throw new IllegalArgumentException("Checkpoint interval must be greater than or equal to 1.");
+    }
+
+    this.checkpointFile = file;
+    this.checkpointInterval = intervalBytes;
+  }
+
+
+  /**
+   * Restores the order of Tweets, whose timestamps are out of order by at most the allowed lateness, before counting them. Later
+   * Tweets are dropped (see {@link #getDroppedTweetCount()}). Reordering is not supported with checkpoints and concurrent counters.
+   *
+   * @param lateness
+   *          Allowed lateness in milliseconds.
+   * @param capacity
+   *          Maximum number of Tweets held back at once.
+   */
+  public void enableReordering(final long lateness, final int capacity)
+  {
+    if (lateness < 0)
+    {
+      throw new IllegalArgumentException("Allowed lateness must be greater than or equal to 0.");
+    }
+    else if (capacity < 1)
+    {
+      throw new IllegalArgumentException("Reorder capacity must be greater than or equal to 1.");
+    }
+
+    this.allowedLateness = lateness;
+    this.reorderCapacity = capacity;
+  }
+
+
+  /**
+   * Number of Tweets dropped so far, because they arrived later than the allowed lateness.
+   */
+  public long getDroppedTweetCount()
+  {
+    return droppedTweets;
+  }
+
+
+  /**
+   * Copies the state of the counters on the ingest thread at chunk borders and writes it to the checkpoint file on a background
+   * thread. At most one checkpoint is written at once, the ingest thread waits for the previous one before copying the next.
+   */
+  private class CheckpointWriter
+    implements ChunkListener, Closeable
+  {
+
+    private final long sourceLength;
+
+    private final long restoredTweets;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private Future<?> pendingWrite = null;
+
+    private long nextCheckpoint;
+
+    private long lastOffset;
+    private long lastTweetCount = 0;
+
+    private long checkpointedOffset;
+
+
+    public CheckpointWriter(final long sourceLength, final long startOffset, final long restoredTweets)
+    {
+      this.sourceLength = sourceLength;
+      this.restoredTweets = restoredTweets;
+      this.nextCheckpoint = startOffset + checkpointInterval;
+      this.lastOffset = startOffset;
+      this.checkpointedOffset = startOffset;
+    }
+
+
+    @Override
+    public void chunkProcessed(final long offset, final long itemCount)
+    {
+      lastOffset = offset;
+      lastTweetCount = itemCount;
+
+      if (offset >= nextCheckpoint)
+      {
+        write();
+        nextCheckpoint = offset + checkpointInterval;
+      }
+    }
+
+
+    /**
+     * Writes the final checkpoint, if necessary, and waits until it is written.
+     */
+    public void finish()
+    {
+      if (lastOffset > checkpointedOffset)
+      {
+        write();
+      }
+      waitForPendingWrite();
+    }
+
+
+    private void write()
+    {
+      waitForPendingWrite();
+
+      final DGIMSummary[] summaries = new DGIMSummary[dgimCounters.length];
+      for (int i = 0; i < summaries.length; i++)
+      {
+        summaries[i] = dgimCounters[i].toSummary();
+      }
+      final CountingCheckpoint checkpoint = new CountingCheckpoint(sourceLength, lastOffset, restoredTweets + lastTweetCount,
+          caseInsensitive, windowType == WindowType.COUNT, n, bucketsPerSize, getCounterHashtags(), summaries, clock.getTime());
+      checkpointedOffset = lastOffset;
+
+      pendingWrite = executor.submit(new Callable<Void>()
+      {
+
+        @Override
+        public Void call()
+          throws IOException
+        {
+          checkpoint.write(checkpointFile);
+          return null;
+        }
+
+      });
+    }
+
+
+    private void waitForPendingWrite()
+    {
+      if (pendingWrite == null)
+      {
+        return;
+      }
+
+      try
+      {
+        pendingWrite.get();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while writing checkpoint " + checkpointFile.getAbsolutePath() + ".", e);
+      }
+      catch (ExecutionException e)
+      {
+        throw new IllegalStateException("Writing checkpoint " + checkpointFile.getAbsolutePath() + " failed.", e.getCause());
+      }
+      finally
+      {
+        pendingWrite = null;
+      }
+    }
+
+
+    @Override
+    public void close()
+    {
+      executor.shutdownNow();
+    }
+
+  }
+
+
+  /**
+   * How DGIM counters store their buckets.
+   */
+  public enum CounterType
+  {
+    /**
+     * Linked chain of bucket objects, see {@link DGIMCount}.
+     */
+    CHAIN,
+    /**
+     * Primitive ring buffers per bucket size, see {@link DGIMArrayCount}.
+     */
+    ARRAY,
+    /**
+     * Ring buffers in several stripes, that are updated by the parsing threads, see {@link ConcurrentDGIMCount}. Unless actual
+     * counts are requested, the result depends on the order in which the parsing threads happen to insert.
+     */
+    CONCURRENT
+  }
+
+
+  public enum WindowType
+  {
+    /**
+     * Windows of the latest milliseconds, based on the timestamps of the Tweets.
+     */
+    TIME,
+    /**
+     * Windows of the latest Tweets, based on the position of the Tweets in the stream. Concurrent counters are not supported.
+     */
+    COUNT
+  }
+
+}
@@ -0,0 +1,380 @@
+package de.l3s.lsdmproject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import de.l3s.lsdmproject.CountingHashTags.CounterType;
+import de.l3s.lsdmproject.CountingHashTags.WindowType;
+import de.l3s.lsdmproject.baseline.ExactCount;
+import de.l3s.lsdmproject.dgim.DGIMCount;
+import de.l3s.lsdmproject.dgim.SlidingWindowCounter;
+import de.l3s.lsdmproject.dgim.StreamClock;
+import de.l3s.lsdmproject.dgim.WindowEstimate;
+import de.l3s.lsdmproject.ingest.EventLog;
+import de.l3s.lsdmproject.ingest.EventLogReader;
+import de.l3s.lsdmproject.ingest.LineHandler;
+import de.l3s.lsdmproject.ingest.MappedLineSource;
+import de.l3s.lsdmproject.ingest.MatchedTweet;
+import de.l3s.lsdmproject.ingest.MatchingTweetParser;
+import de.l3s.lsdmproject.model.HashtagDictionary;
+
+
+/**
+ * Evaluates the accuracy and the cost of DGIM counters by comparing them with exact counts.<br />
+ * The matches of a source file are loaded once, as the time of the stream and the counter they belong to. Then the matches are
+ * replayed for each number of buckets per size (r): first without queries to measure the time per insert, then with queries at
+ * evenly spaced points of the stream, comparing the estimates of all hashtags and windows with the exact counts.
+ *
+ * @author Sebastian
+ *
+ */
+public class EvaluatingCounters
+{
+
+  /**
+   * Replays without queries, the fastest one is taken as the time per insert.
+   */
+  private static final int TIMING_RUNS = 5;
+
+  final long n;
+
+  final WindowType windowType;
+
+  /**
+   * Maps each hashtag to the index of its counters.
+   */
+  final HashtagDictionary dictionary;
+
+  /**
+   * Stream time and counter of each match, in the order of the stream.
+   */
+  private long[] matchTimes = new long[1024];
+  private int[] matchCounters = new int[1024];
+  private int matchCount = 0;
+
+
+  public EvaluatingCounters(final Set<String> hashtags, final boolean caseInsensitive, final long n,
+      final WindowType windowType)
+  {
+    this.n = n;
+    this.windowType = windowType;
+
+    this.dictionary = new HashtagDictionary(caseInsensitive);
+    for (String hashtag : hashtags)
+    {
+      dictionary.intern(hashtag);
+    }
+  }
+
+
+  /**
+   * Loads the matches of a file of JSON encoded Tweets or an event log.
+   *
+   * @return The number of Tweets read.
+   */
+  public long loadSourceFile(final String sourcePath)
+    throws IOException
+  {
+    final File sourceFile = new File(sourcePath);
+    if (!sourceFile.isFile())
+    {
+      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
+    }
+
+    // Matches get the time of the clock, like in the counters
+    final StreamClock clock = new StreamClock();
+    final LineHandler<MatchedTweet> handler = new LineHandler<MatchedTweet>()
+    {
+
+      @Override
+      public void handle(final MatchedTweet t)
+      {
+        if (t.getTimestampMs() == -1)
+        {
+          return;
+        }
+
+        clock.advance(windowType == WindowType.COUNT ? clock.getTime() + 1 : t.getTimestampMs());
+        for (final int h : t.getMatches())
+        {
+          addMatch(clock.getTime(), h);
+        }
+      }
+
+    };
+
+    final MatchingTweetParser parser = new MatchingTweetParser(dictionary, false);
+    if (EventLog.isEventLog(sourceFile))
+    {
+      return parser.replay(new EventLogReader(sourceFile), handler);
+    }
+    else
+    {
+      return new MappedLineSource(sourceFile).process(parser, handler);
+    }
+  }
+
+
+  private void addMatch(final long time, final int counter)
+  {
+    if (matchCount == matchTimes.length)
+    {
+      matchTimes = Arrays.copyOf(matchTimes, 2 * matchCount);
+      matchCounters = Arrays.copyOf(matchCounters, 2 * matchCount);
+    }
+
+    matchTimes[matchCount] = time;
+    matchCounters[matchCount] = counter;
+    matchCount++;
+  }
+
+
+  public int getMatchCount()
+  {
+    return matchCount;
+  }
+
+
+  /**
+   * Replays the loaded matches into DGIM counters with r buckets per size.
+   *
+   * @param ks
+   *          Windows to query.
+   * @param sampleCount
+   *          Number of points of the stream to query at.
+   * @return The results per window, in the order of the given windows.
+   */
+  public Result[] evaluate(final CounterType counterType, final int r, final long[] ks, final int sampleCount)
+  {
+    if (sampleCount < 1)
+    {
+      throw new IllegalArgumentException("Number of samples must be greater than or equal to 1.");
+    }
+
+    // Time per insert, without queries
+    long fastestNanos = Long.MAX_VALUE;
+    for (int run = 0; run < TIMING_RUNS; run++)
+    {
+      final SlidingWindowCounter[] counters = createCounters(counterType, r, new StreamClock());
+      final long start = System.nanoTime();
+      for (int m = 0; m < matchCount; m++)
+      {
+        counters[matchCounters[m]].insert(matchTimes[m], true);
+      }
+      fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+    }
+    final double nanosPerInsert = matchCount == 0 ? 0 : fastestNanos / (double) matchCount;
+
+    // Errors at evenly spaced points of the stream
+    final StreamClock clock = new StreamClock();
+    final SlidingWindowCounter[] counters = createCounters(counterType, r, clock);
+    final ExactCount[] exactCounters = new ExactCount[counters.length];
+    for (int i = 0; i < counters.length; i++)
+    {
+      exactCounters[i] = new ExactCount(n, dictionary.getHashtag(i), clock);
+    }
+
+    final ErrorDistribution[] distributions = new ErrorDistribution[ks.length];
+    for (int j = 0; j < ks.length; j++)
+    {
+      distributions[j] = new ErrorDistribution();
+    }
+
+    long maxBytesPerCounter = 0;
+    final int sampleInterval = Math.max(1, matchCount / sampleCount);
+    for (int m = 0; m < matchCount; m++)
+    {
+      counters[matchCounters[m]].insert(matchTimes[m], true);
+      exactCounters[matchCounters[m]].insert(matchTimes[m], true);
+
+      if ((m + 1) % sampleInterval == 0)
+      {
+        long bytes = 0;
+        for (int i = 0; i < counters.length; i++)
+        {
+          final WindowEstimate[] estimates = counters[i].count(ks);
+          for (int j = 0; j < ks.length; j++)
+          {
+            distributions[j].add(estimates[j], exactCounters[i].count(ks[j]));
+          }
+          bytes += counters[i].getMemoryEstimate();
+        }
+        maxBytesPerCounter = Math.max(maxBytesPerCounter, bytes / counters.length);
+      }
+    }
+
+    final Result[] results = new Result[ks.length];
+    for (int j = 0; j < ks.length; j++)
+    {
+      results[j] = new Result(r, ks[j], distributions[j], DGIMCount.errorBoundForBucketsPerSize(r), maxBytesPerCounter,
+          nanosPerInsert);
+    }
+
+    return results;
+  }
+
+
+  private SlidingWindowCounter[] createCounters(final CounterType counterType, final int r, final StreamClock clock)
+  {
+    final SlidingWindowCounter[] counters = new SlidingWindowCounter[dictionary.size()];
+    for (int i = 0; i < counters.length; i++)
+    {
+      counters[i] = CountingHashTags.createCounter(counterType, n, dictionary.getHashtag(i), clock, r);
+    }
+
+    return counters;
+  }
+
+
+  /**
+   * Writes the results as CSV, one line per number of buckets per size (r) and window (k).
+   */
+  public static void writeCsv(final List<Result> results, final PrintStream out)
+  {
+    out.println("r,k,samples,rel_error_p50,rel_error_p90,rel_error_p99,rel_error_max,error_bound,abs_error_max,"
+        + "bound_violations,bytes_per_counter,ns_per_insert");
+    for (Result result : results)
+    {
+      out.println(result.toCsv());
+    }
+  }
+
+
+  /**
+   * The errors of all queries of a window. Relative errors are only known for queries with an actual count greater than 0.
+   */
+  static class ErrorDistribution
+  {
+
+    private double[] relativeErrors = new double[1024];
+    private int relativeErrorCount = 0;
+
+    private long sampleCount = 0;
+
+    private long maxAbsoluteError = 0;
+
+    /**
+     * Number of queries, whose actual count was outside of the bounds of the estimate.
+     */
+    private long boundViolations = 0;
+
+    private boolean sorted = true;
+
+
+    public void add(final WindowEstimate estimate, final long actual)
+    {
+      sampleCount++;
+      maxAbsoluteError = Math.max(maxAbsoluteError, Math.abs(estimate.getEstimate() - actual));
+      if (actual < estimate.getLowerBound() || actual > estimate.getUpperBound())
+      {
+        boundViolations++;
+      }
+
+      if (actual > 0)
+      {
+        if (relativeErrorCount == relativeErrors.length)
+        {
+          relativeErrors = Arrays.copyOf(relativeErrors, 2 * relativeErrorCount);
+        }
+        relativeErrors[relativeErrorCount++] = Math.abs(estimate.getEstimate() - actual) / (double) actual;
+        sorted = false;
+      }
+    }
+
+
+    /**
+     * Returns the p-th percentile (nearest rank) of the relative errors, 0 if there are none.
+     */
+    public double percentile(final double p)
+    {
+      if (relativeErrorCount == 0)
+      {
+        return 0;
+      }
+      else if (!sorted)
+      {
+        Arrays.sort(relativeErrors, 0, relativeErrorCount);
+        sorted = true;
+      }
+
+      final int rank = (int) Math.ceil(p / 100.0 * relativeErrorCount);
+      return relativeErrors[Math.max(0, rank - 1)];
+    }
+
+  }
+
+
+  /**
+   * The errors and costs of a number of buckets per size (r) at a window (k).
+   */
+  public static class Result
+  {
+
+    private final int r;
+    private final long k;
+
+    private final long sampleCount;
+
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double max;
+
+    private final double errorBound;
+
+    private final long maxAbsoluteError;
+
+    private final long boundViolations;
+
+    private final long bytesPerCounter;
+
+    private final double nanosPerInsert;
+
+
+    Result(final int r, final long k, final ErrorDistribution distribution, final double errorBound, final long bytesPerCounter,
+        final double nanosPerInsert)
+    {
+      this.r = r;
+      this.k = k;
+      this.sampleCount = distribution.sampleCount;
+      this.p50 = distribution.percentile(50);
+      this.p90 = distribution.percentile(90);
+      this.p99 = distribution.percentile(99);
+      this.max = distribution.percentile(100);
+      this.errorBound = errorBound;
+      this.maxAbsoluteError = distribution.maxAbsoluteError;
+      this.boundViolations = distribution.boundViolations;
+      this.bytesPerCounter = bytesPerCounter;
+      this.nanosPerInsert = nanosPerInsert;
+    }
+
+
+    /**
+     * Maximum relative error of all queries.
+     */
+    public double getMaxRelativeError()
+    {
+      return max;
+    }
+
+
+    public double getErrorBound()
+    {
+      return errorBound;
+    }
+
+
+    public String toCsv()
+    {
+      return String.format(Locale.ROOT, "%d,%d,%d,%.5f,%.5f,%.5f,%.5f,%.5f,%d,%d,%d,%.1f", r, k, sampleCount, p50, p90, p99, max,
+          errorBound, maxAbsoluteError, boundViolations, bytesPerCounter, nanosPerInsert);
+    }
+
+  }
+
+}
@@ -1,371 +1,770 @@
-package de.l3s.lsdmproject;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonSyntaxException;
-
-import de.l3s.lsdmproject.bloom.BloomFilter;
-import de.l3s.lsdmproject.bloom.HashCombo;
-import de.l3s.lsdmproject.bloom.HashFunction;
-import de.l3s.lsdmproject.bloom.JavaStringHash;
-import de.l3s.lsdmproject.bloom.StringLengthHash;
-import de.l3s.lsdmproject.model.Tweet;
-import de.l3s.lsdmproject.utils.StopWatch;
-
-
-public class FilteringTweetByHashtags
-{
-
-  final BloomFilter filter;
-  final boolean caseInsensitive;
-  final boolean countFalsePositives;
-  final List<String> trainedHashtags = new ArrayList<>();
-
-  final HashSet<String> falsePositiveHashtags = new HashSet<>();
-
-  long tweetsOverall = 0;
-  long tweetsAccepted = 0;
-  long tweetsDiscarded = 0;
-  long tweetsAcceptedFalsePositive = 0;
-
-
-  /**
-   * Initializes and trains a bloom filter to select Tweets out of a file (stream), that contain certain hashtags.
-   */
-  public FilteringTweetByHashtags(final String[] trainingHashtags, final boolean caseInsensitive, final int bucketSize,
-      final boolean countFalsePositives)
-  {
-    this.filter = new BloomFilter(bucketSize, getHashCombo(bucketSize));
-    this.caseInsensitive = caseInsensitive;
-    this.countFalsePositives = countFalsePositives;
-
-    for (final String hashtag : trainingHashtags)
-    {
-      if (this.caseInsensitive)
-      {
-        filter.train(hashtag.toLowerCase());
-        this.trainedHashtags.add(hashtag.toLowerCase());
-      }
-      else
-      {
-        filter.train(hashtag);
-        this.trainedHashtags.add(hashtag);
-      }
-    }
-
-    System.out.println("  ----------");
-    System.out.println("  Parameters");
-    System.out.println("  ----------");
-    System.out.println("  Training Hashtags:     " + Arrays.toString(trainingHashtags));
-    System.out.println("  Bucket size (n):       " + bucketSize);
-    System.out.println("  Case insensitive:      " + caseInsensitive);
-    System.out.println("  Hash functions:        " + this.filter.getPrettyHashFunctions());
-    System.out.println("  ----------");
-  }
-
-
-  public static void main(String[] args)
-    throws IOException
-  {
-    final String[] trainingHashtags = { "WHO", "stopebola" };
-    final int bucketSize = 100;
-    final boolean caseInsensitive = true;
-    final boolean countFalsePositives = true;
-    final String sourceFile = "E:/tagging-ide/lsdm16/ebola.json";
-    final CheckCombinationMode mode = CheckCombinationMode.CONJUNCTION;
-
-    System.out.println("[FilteringTweetByHashtags]");
-
-    System.out.println("");
-
-    System.out.println("Training Bloom Filter...");
-    final StopWatch initTimer = new StopWatch("Training Bloom Filter");
-    final FilteringTweetByHashtags fht =
-      new FilteringTweetByHashtags(trainingHashtags, caseInsensitive, bucketSize, countFalsePositives);
-    initTimer.end();
-    System.out.println("Done.");
-
-    System.out.println("");
-
-    System.out.println("Analyzing Tweet File...");
-    final StopWatch filterTimer = new StopWatch("Analyzing Tweet File");
-    final List<Tweet> filteredTweets = fht.analyzeTwitterFileDisjunct(sourceFile, mode);
-    fht.printLastStats();
-    filterTimer.end();
-    System.out.println("Done.");
-
-    System.out.println("");
-
-    System.out.println("Runtimes");
-    System.out.println("  " + initTimer.printEnd());
-    System.out.println("  " + filterTimer.printEnd());
-  }
-
-
-  /**
-   * Creates a combo of hashCode() hashing and length hashing.
-   */
-  private static HashCombo getHashCombo(final int n)
-  {
-    final HashFunction defaultHashFunction = new JavaStringHash(n);
-    final HashCombo hashCombo = new HashCombo(n, defaultHashFunction);
-    hashCombo.addHashFunction(new StringLengthHash(n));
-
-    return hashCombo;
-  }
-
-
-  /**
-   * Analyzes a given twitter file by using the trained Bloom Filter.
-   */
-  public List<Tweet> analyzeTwitterFileDisjunct(final String sourcePath, final CheckCombinationMode mode)
-    throws JsonSyntaxException, IOException
-  {
-    // Check file existence
-    final File sourceFile = new File(sourcePath);
-    if (!sourceFile.isFile())
-    {
-      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
-    }
-
-    System.out.println("  ----------");
-    System.out.println("  Parameters");
-    System.out.println("  ----------");
-    System.out.println("  Tweet source File:     " + sourceFile.getAbsolutePath());
-    System.out.println("  Count false positives: " + countFalsePositives);
-    System.out.println("  Check for Hashtags:    " + mode);
-    System.out.println("  ----------");
-
-    // Reset counters
-    tweetsOverall = 0;
-    tweetsAccepted = 0;
-    tweetsDiscarded = 0;
-    tweetsAcceptedFalsePositive = 0;
-
-    // Read file linewise
-    try (FileReader fr = new FileReader(sourceFile); BufferedReader br = new BufferedReader(fr))
-    {
-      final ArrayList<Tweet> filteredTweets = new ArrayList<>();
-
-      final Gson gson = new GsonBuilder().create();
-      String line;
-      while ((line = br.readLine()) != null)
-      {
-        final Tweet t = gson.fromJson(line, Tweet.class);
-        tweetsOverall++;
-
-        /**
-         * Test disjunction of hash results.
-         */
-        if (mode == CheckCombinationMode.DISJUNCTION && checkTweetDisjunct(t))
-        {
-          filteredTweets.add(t);
-          tweetsAccepted++;
-        }
-        /**
-         * Test conjunction of hash results.
-         */
-        else if (mode == CheckCombinationMode.CONJUNCTION && checkTweetConjunct(t))
-        {
-          filteredTweets.add(t);
-          tweetsAccepted++;
-        }
-        /**
-         * Definitely not acceptable.
-         */
-        else
-        {
-          tweetsDiscarded++;
-        }
-
-      }
-
-      return filteredTweets;
-    }
-    catch (FileNotFoundException e)
-    {
-      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
-    }
-  }
-
-
-  public void printLastStats()
-  {
-    System.out.println("  Statistics");
-    System.out.println("  ----------");
-    System.out.println("  Tweets analyzed:       " + tweetsOverall);
-    System.out.println("  Tweets discarded:      " + tweetsDiscarded);
-    System.out.println("  Tweets accepted");
-    System.out.println("          (overall):     " + tweetsAccepted);
-    if (countFalsePositives)
-    {
-      System.out.println("  Tweets accepted");
-      System.out.println("   (false positives):    " + tweetsAcceptedFalsePositive);
-      System.out.println("  Colliding hashtags:    " + Arrays.toString(falsePositiveHashtags.toArray()));
-    }
-
-    System.out.println("  ----------");
-  }
-
-
-  /**
-   * Checks whether a given hashtag is matched by the Bloom Filter.<br />
-   * 
-   * @return False iff the hashtag is definitely not acceptable, false if it is acceptable (including some uncertainty).
-   */
-  private boolean checkHashtag(final String hashtag)
-  {
-    if (caseInsensitive)
-    {
-      return filter.check(hashtag.toLowerCase());
-    }
-    else
-    {
-      return filter.check(hashtag);
-    }
-  }
-
-
-  /**
-   * Checks whether at least one of the tweets' hashtags is matched by the Bloom Filter.
-   */
-  private boolean checkTweetDisjunct(final Tweet tweet)
-  {
-    for (final String hashtag : tweet.getHashtags())
-    {
-      if (checkHashtag(hashtag))
-      {
-        if (countFalsePositives)
-        {
-          countFalsePositive(tweet.getId(), hashtag);
-        }
-
-        return true;
-      }
-    }
-
-    return false;
-  }
-
-
-  /**
-   * Checks whether all of the tweets' hashtags are matched by the Bloom Filter.
-   */
-  private boolean checkTweetConjunct(final Tweet tweet)
-  {
-    for (final String hashtag : tweet.getHashtags())
-    {
-      if (!checkHashtag(hashtag))
-      {
-        return false;
-      }
-    }
-
-    if (tweet.getHashtags().isEmpty())
-    {
-      return false;
-    }
-    else
-    {
-      if (countFalsePositives)
-      {
-        countFalsePositives(tweet.getId(), tweet.getHashtags());
-      }
-
-      return true;
-    }
-  }
-
-
-  /**
-   * Helper to count false positive accepted tweets and their colliding hashtags for disjunction mode.
-   */
-  private void countFalsePositive(final long tweetId, final String hashtag)
-  {
-    if (caseInsensitive)
-    {
-      // List of filter-hashtags doesn't contain the hashtag (case-insensitive)
-      if (!trainedHashtags.contains(hashtag.toLowerCase()))
-      {
-        tweetsAcceptedFalsePositive++;
-        falsePositiveHashtags.add(hashtag);
-        // System.out.println(
-        // " False positive: Tweet[" + tweetId + "] with hashtag #" + hashtag + " matched (case-insensitive)");
-      }
-    }
-    else
-    {
-      // List of filter-hashtags doesn't contain the hashtag (case-sensitive)
-      if (!trainedHashtags.contains(hashtag))
-      {
-        tweetsAcceptedFalsePositive++;
-        falsePositiveHashtags.add(hashtag);
-        // System.out.println(" False positive: Tweet[" + tweetId + "] with hashtag #" + hashtag + " matched");
-      }
-    }
-  }
-
-
-  /**
-   * Helper to count false positive accepted tweets and their colliding hashtags for conjunction mode.
-   */
-  private void countFalsePositives(final long tweetId, final Collection<String> hashtags)
-  {
-    if (caseInsensitive)
-    {
-      boolean falsePositive = false;
-
-      for (String hashtag : hashtags)
-      {
-        // List of filter-hashtags doesn't contain the hashtag (case-insensitive)
-        if (!this.trainedHashtags.contains(hashtag.toLowerCase()))
-        {
-          falsePositiveHashtags.add(hashtag);
-          falsePositive = true;
-        }
-      }
-
-      if (falsePositive)
-      {
-        tweetsAcceptedFalsePositive++;
-      }
-    }
-    else
-    {
-      boolean falsePositive = false;
-
-      for (String hashtag : hashtags)
-      {
-        // List of filter-hashtags doesn't contain the hashtag (case-insensitive)
-        if (!this.trainedHashtags.contains(hashtag))
-        {
-          falsePositiveHashtags.add(hashtag);
-          falsePositive = true;
-        }
-      }
-
-      if (falsePositive)
-      {
-        tweetsAcceptedFalsePositive++;
-      }
-    }
-  }
-
-
-  public enum CheckCombinationMode
-  {
-    DISJUNCTION, CONJUNCTION
-  }
-
-}
+package de.l3s.lsdmproject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.JsonSyntaxException;
+
+import de.l3s.lsdmproject.bloom.BlockedBloomFilter;
+import de.l3s.lsdmproject.bloom.BloomFilter;
+import de.l3s.lsdmproject.bloom.CountingBloomFilter;
+import de.l3s.lsdmproject.bloom.HashCombo;
+import de.l3s.lsdmproject.bloom.HashFunction;
+import de.l3s.lsdmproject.bloom.JavaStringHash;
+import de.l3s.lsdmproject.bloom.MembershipFilter;
+import de.l3s.lsdmproject.bloom.ScalableBloomFilter;
+import de.l3s.lsdmproject.bloom.Murmur3Hash;
+import de.l3s.lsdmproject.bloom.StringLengthHash;
+import de.l3s.lsdmproject.bloom.XxHash64;
+import de.l3s.lsdmproject.ingest.EventHandler;
+import de.l3s.lsdmproject.ingest.EventLog;
+import de.l3s.lsdmproject.ingest.EventLogReader;
+import de.l3s.lsdmproject.ingest.LineHandler;
+import de.l3s.lsdmproject.ingest.LineParser;
+import de.l3s.lsdmproject.ingest.MappedLineSource;
+import de.l3s.lsdmproject.ingest.ScannedTweet;
+import de.l3s.lsdmproject.ingest.TweetScanner;
+import de.l3s.lsdmproject.model.Tweet;
+import de.l3s.lsdmproject.utils.StopWatch;
+
+
+public class FilteringTweetByHashtags
+{
+
+  /**
+   * Placeholder for Tweets that were discarded while parsing.
+   */
+  private static final Tweet DISCARDED = new Tweet(0, null, null);
+
+  final MembershipFilter filter;
+  final boolean caseInsensitive;
+  final boolean countFalsePositives;
+  /**
+   * The watched hashtags, they may change while filtering (see {@link #watch(String)}).
+   */
+  final Set<String> trainedHashtags = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /**
+   * Incremented on each change of the watched hashtags.
+   */
+  volatile int watchListVersion = 0;
+
+  final HashSet<String> falsePositiveHashtags = new HashSet<>();
+
+  long tweetsOverall = 0;
+  long tweetsAccepted = 0;
+  long tweetsDiscarded = 0;
+  long tweetsAcceptedFalsePositive = 0;
+
+
+  /**
+   * Initializes and trains a bloom filter to select Tweets out of a file (stream), that contain certain hashtags.
+   */
+  public FilteringTweetByHashtags(final String[] trainingHashtags, final boolean caseInsensitive, final long bucketSize,
+      final boolean countFalsePositives)
+  {
+    this(trainingHashtags, caseInsensitive, bucketSize, HashType.JAVA, countFalsePositives);
+  }
+
+
+  /**
+   * Initializes and trains a bloom filter with two hash functions of the given type.
+   */
+  public FilteringTweetByHashtags(final String[] trainingHashtags, final boolean caseInsensitive, final long bucketSize,
+      final HashType hashType, final boolean countFalsePositives)
+  {
+    this(trainingHashtags, caseInsensitive, bucketSize, hashType, FilterType.CLASSIC, countFalsePositives);
+  }
+
+
+  /**
+   * Initializes and trains a bloom filter of the given type. A blocked filter sets two positions per hashtag, like the two hash
+   * functions of the other types, and ignores the hash type.
+   */
+  public FilteringTweetByHashtags(final String[] trainingHashtags, final boolean caseInsensitive, final long bucketSize,
+      final HashType hashType, final FilterType filterType, final boolean countFalsePositives)
+  {
+    this(trainingHashtags, caseInsensitive, createFilter(bucketSize, hashType, filterType), countFalsePositives);
+  }
+
+
+  /**
+   * Initializes and trains a bloom filter sized for the training hashtags and the given false positive rate, see
+   * {@link BloomFilter#forFalsePositiveRate(long, double)}.
+   */
+  public static FilteringTweetByHashtags withFalsePositiveRate(final String[] trainingHashtags, final boolean caseInsensitive,
+      final double falsePositiveRate, final boolean countFalsePositives)
+  {
+    return withFalsePositiveRate(trainingHashtags, caseInsensitive, falsePositiveRate, FilterType.CLASSIC, countFalsePositives);
+  }
+
+
+  /**
+   * Initializes and trains a bloom filter of the given type, sized for the training hashtags and the given false positive rate.
+   */
+  public static FilteringTweetByHashtags withFalsePositiveRate(final String[] trainingHashtags, final boolean caseInsensitive,
+      final double falsePositiveRate, final FilterType filterType, final boolean countFalsePositives)
+  {
+    return withFalsePositiveRate(trainingHashtags, caseInsensitive, distinctCount(trainingHashtags, caseInsensitive),
+        falsePositiveRate, filterType, countFalsePositives);
+  }
+
+
+  /**
+   * Initializes and trains a bloom filter of the given type, sized for the expected number of hashtags and the given false
+   * positive rate. A scalable filter starts with the expected number of hashtags and grows beyond.
+   */
+  public static FilteringTweetByHashtags withFalsePositiveRate(final String[] trainingHashtags, final boolean caseInsensitive,
+      final long expectedHashtags, final double falsePositiveRate, final FilterType filterType,
+      final boolean countFalsePositives)
+  {
+    return new FilteringTweetByHashtags(trainingHashtags, caseInsensitive,
+        createFilter(expectedHashtags, falsePositiveRate, filterType), countFalsePositives);
+  }
+
+
+  /**
+   * Trains the given (empty) filter.
+   */
+  public FilteringTweetByHashtags(final String[] trainingHashtags, final boolean caseInsensitive,
+      final MembershipFilter filter, final boolean countFalsePositives)
+  {
+    this.filter = filter;
+    this.caseInsensitive = caseInsensitive;
+    this.countFalsePositives = countFalsePositives;
+
+    for (final String hashtag : trainingHashtags)
+    {
+      watch(hashtag);
+    }
+
+    System.out.println("  ----------");
+    System.out.println("  Parameters");
+    System.out.println("  ----------");
+    System.out.println("  Training Hashtags:     " + Arrays.toString(trainingHashtags));
+    System.out.println("  Bucket size (n):       " + filter.getBinCount());
+    System.out.println("  Case insensitive:      " + caseInsensitive);
+    System.out.println("  Hash functions:        " + this.filter.getPrettyHashFunctions());
+    printScalableFilter();
+    System.out.println("  ----------");
+  }
+
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    final String[] trainingHashtags = { "WHO", "stopebola" };
+    final int bucketSize = 100;
+    final boolean caseInsensitive = true;
+    final boolean countFalsePositives = true;
+    final String sourceFile = "E:/tagging-ide/lsdm16/ebola.json";
+    final CheckCombinationMode mode = CheckCombinationMode.CONJUNCTION;
+
+    System.out.println("[FilteringTweetByHashtags]");
+
+    System.out.println("");
+
+    System.out.println("Training Bloom Filter...");
+    final StopWatch initTimer = new StopWatch("Training Bloom Filter");
+    final FilteringTweetByHashtags fht =
+      new FilteringTweetByHashtags(trainingHashtags, caseInsensitive, bucketSize, countFalsePositives);
+    initTimer.end();
+    System.out.println("Done.");
+
+    System.out.println("");
+
+    System.out.println("Analyzing Tweet File...");
+    final StopWatch filterTimer = new StopWatch("Analyzing Tweet File");
+    final List<Tweet> filteredTweets = fht.analyzeTwitterFileDisjunct(sourceFile, mode);
+    fht.printLastStats();
+    filterTimer.end();
+    System.out.println("Done.");
+
+    System.out.println("");
+
+    System.out.println("Runtimes");
+    System.out.println("  " + initTimer.printEnd());
+    System.out.println("  " + filterTimer.printEnd());
+  }
+
+
+  /**
+   * Starts watching a hashtag, i.e. trains the filter with it. This may happen while a file is analyzed, Tweets parsed afterwards
+   * are checked against it.
+   *
+   * @return False if the hashtag is watched already.
+   */
+  public synchronized boolean watch(final String hashtag)
+  {
+    final String trainedHashtag = caseInsensitive ? hashtag.toLowerCase() : hashtag;
+    if (trainedHashtags.contains(trainedHashtag))
+    {
+      return false;
+    }
+
+    // The filter never rejects a watched hashtag, so it is not counted as a false positive meanwhile
+    filter.train(trainedHashtag);
+    trainedHashtags.add(trainedHashtag);
+    watchListVersion++;
+
+    return true;
+  }
+
+
+  /**
+   * Stops watching a hashtag, i.e. removes it from the filter. This may happen while a file is analyzed, Tweets parsed afterwards
+   * are not accepted for it anymore (unless by a false positive). Requires a {@link CountingBloomFilter}.
+   *
+   * @return False if the hashtag is not watched.
+   */
+  public synchronized boolean unwatch(final String hashtag)
+  {
+    if (!(filter instanceof CountingBloomFilter))
+    {
+      throw new IllegalStateException("Hashtags can only be removed from a counting filter.");
+    }
+
+    final String trainedHashtag = caseInsensitive ? hashtag.toLowerCase() : hashtag;
+    if (!trainedHashtags.contains(trainedHashtag))
+    {
+      return false;
+    }
+
+    ((CountingBloomFilter) filter).untrain(trainedHashtag);
+    trainedHashtags.remove(trainedHashtag);
+    watchListVersion++;
+
+    return true;
+  }
+
+
+  /**
+   * Returns a copy of the watched hashtags (lower case, if the case is ignored).
+   */
+  public Set<String> getWatchedHashtags()
+  {
+    return new HashSet<>(trainedHashtags);
+  }
+
+
+  private static long distinctCount(final String[] hashtags, final boolean caseInsensitive)
+  {
+    final HashSet<String> distinct = new HashSet<>();
+    for (final String hashtag : hashtags)
+    {
+      distinct.add(caseInsensitive ? hashtag.toLowerCase() : hashtag);
+    }
+
+    return Math.max(1, distinct.size());
+  }
+
+
+  private static MembershipFilter createFilter(final long bucketSize, final HashType hashType, final FilterType filterType)
+  {
+    switch (filterType)
+    {
+      case BLOCKED:
+        return new BlockedBloomFilter(bucketSize, 2);
+
+      case COUNTING:
+        return new CountingBloomFilter(bucketSize, getHashCombo(bucketSize, hashType));
+
+      case SCALABLE:
+        throw new IllegalArgumentException("Scalable filters require a false positive rate instead of a bucket size.");
+
+      default:
+        return new BloomFilter(bucketSize, getHashCombo(bucketSize, hashType));
+    }
+  }
+
+
+  private static MembershipFilter createFilter(final long expectedElements, final double falsePositiveRate,
+      final FilterType filterType)
+  {
+    switch (filterType)
+    {
+      case BLOCKED:
+        return BlockedBloomFilter.forFalsePositiveRate(expectedElements, falsePositiveRate);
+
+      case COUNTING:
+        return CountingBloomFilter.forFalsePositiveRate(expectedElements, falsePositiveRate);
+
+      case SCALABLE:
+        return new ScalableBloomFilter(expectedElements, falsePositiveRate);
+
+      default:
+        return BloomFilter.forFalsePositiveRate(expectedElements, falsePositiveRate);
+    }
+  }
+
+
+  /**
+   * Creates a combo of hashCode() hashing and length hashing, or of two differently seeded hash functions of the given type.
+   */
+  private static HashCombo getHashCombo(final long n, final HashType hashType)
+  {
+    switch (hashType)
+    {
+      case MURMUR3:
+        final HashCombo murmurCombo = new HashCombo(n, new Murmur3Hash(n, 0));
+        murmurCombo.addHashFunction(new Murmur3Hash(n, 1));
+        return murmurCombo;
+
+      case XXHASH64:
+        final HashCombo xxCombo = new HashCombo(n, new XxHash64(n, 0));
+        xxCombo.addHashFunction(new XxHash64(n, 1));
+        return xxCombo;
+
+      default:
+        final HashFunction defaultHashFunction = new JavaStringHash(n);
+        final HashCombo hashCombo = new HashCombo(n, defaultHashFunction);
+        hashCombo.addHashFunction(new StringLengthHash(n));
+        return hashCombo;
+    }
+  }
+
+
+  /**
+   * Analyzes a given twitter file by using the trained Bloom Filter.
+   */
+  public List<Tweet> analyzeTwitterFileDisjunct(final String sourcePath, final CheckCombinationMode mode)
+    throws JsonSyntaxException, IOException
+  {
+    // Check file existence
+    final File sourceFile = new File(sourcePath);
+    if (!sourceFile.isFile())
+    {
+      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
+    }
+
+    System.out.println("  ----------");
+    System.out.println("  Parameters");
+    System.out.println("  ----------");
+    System.out.println("  Tweet source File:     " + sourceFile.getAbsolutePath());
+    System.out.println("  Count false positives: " + countFalsePositives);
+    System.out.println("  Check for Hashtags:    " + mode);
+    System.out.println("  ----------");
+
+    // Reset counters
+    tweetsOverall = 0;
+    tweetsAccepted = 0;
+    tweetsDiscarded = 0;
+    tweetsAcceptedFalsePositive = 0;
+
+    final ArrayList<Tweet> filteredTweets = new ArrayList<>();
+
+    final LineHandler<Tweet> handler = new LineHandler<Tweet>()
+    {
+
+      @Override
+      public void handle(final Tweet t)
+      {
+        tweetsOverall++;
+
+        /**
+         * Already discarded while parsing.
+         */
+        if (t == DISCARDED)
+        {
+          tweetsDiscarded++;
+        }
+        /**
+         * Test disjunction of hash results.
+         */
+        else if (mode == CheckCombinationMode.DISJUNCTION && checkTweetDisjunct(t))
+        {
+          filteredTweets.add(t);
+          tweetsAccepted++;
+        }
+        /**
+         * Test conjunction of hash results.
+         */
+        else if (mode == CheckCombinationMode.CONJUNCTION && checkTweetConjunct(t))
+        {
+          filteredTweets.add(t);
+          tweetsAccepted++;
+        }
+        /**
+         * Definitely not acceptable.
+         */
+        else
+        {
+          tweetsDiscarded++;
+        }
+      }
+
+    };
+
+    if (EventLog.isEventLog(sourceFile))
+    {
+      replayEventLog(new EventLogReader(sourceFile), mode, handler);
+    }
+    else
+    {
+      // Scan the file in parallel, count the tweets in order of the file
+      new MappedLineSource(sourceFile).process(new FilteringLineParser(mode), handler);
+    }
+
+    return filteredTweets;
+  }
+
+
+  /**
+   * Replays an event log. Each hashtag of the log's dictionary is checked against the Bloom Filter only once, and again after the
+   * watched hashtags changed.
+   */
+  private void replayEventLog(final EventLogReader reader, final CheckCombinationMode mode, final LineHandler<Tweet> handler)
+    throws IOException
+  {
+    final String[] dictionary = reader.getDictionary();
+    final boolean[] matched = new boolean[dictionary.length];
+
+    reader.replay(new EventHandler()
+    {
+
+      private int matchedVersion = -1;
+
+
+      @Override
+      public void handle(final long id, final long timestampMs, final int[] hashtagIds, final int hashtagCount)
+      {
+        if (matchedVersion != watchListVersion)
+        {
+          matchedVersion = watchListVersion;
+          for (int i = 0; i < dictionary.length; i++)
+          {
+            matched[i] = checkHashtag(dictionary[i]);
+          }
+        }
+
+        // Disjunction requires one match, conjunction requires no mismatch
+        final boolean disjunction = mode == CheckCombinationMode.DISJUNCTION;
+        boolean accepted = hashtagCount > 0 && !disjunction;
+        for (int i = 0; i < hashtagCount; i++)
+        {
+          if (matched[hashtagIds[i]] == disjunction)
+          {
+            accepted = disjunction;
+            break;
+          }
+        }
+
+        handler.handle(accepted ? reader.toTweet(id, timestampMs, hashtagIds, hashtagCount) : DISCARDED);
+      }
+
+    });
+  }
+
+
+  public void printLastStats()
+  {
+    System.out.println("  Statistics");
+    System.out.println("  ----------");
+    System.out.println("  Tweets analyzed:       " + tweetsOverall);
+    System.out.println("  Tweets discarded:      " + tweetsDiscarded);
+    System.out.println("  Tweets accepted");
+    System.out.println("          (overall):     " + tweetsAccepted);
+    if (countFalsePositives)
+    {
+      System.out.println("  Tweets accepted");
+      System.out.println("   (false positives):    " + tweetsAcceptedFalsePositive);
+      System.out.println("  Colliding hashtags:    " + Arrays.toString(falsePositiveHashtags.toArray()));
+    }
+    printScalableFilter();
+
+    System.out.println("  ----------");
+  }
+
+
+  /**
+   * Prints the state of a scalable filter, as it may have grown.
+   */
+  private void printScalableFilter()
+  {
+    if (filter instanceof ScalableBloomFilter)
+    {
+      final ScalableBloomFilter scalableFilter = (ScalableBloomFilter) filter;
+      System.out.println("  Filters:               " + scalableFilter.getFilterCount());
+      System.out.println("  Fill ratio:            " + String.format(Locale.ROOT, "%.4f", scalableFilter.getFillRatio()));
+      System.out.println("  Estimated FPR:         "
+          + String.format(Locale.ROOT, "%.6f", scalableFilter.getEstimatedFalsePositiveRate()));
+    }
+  }
+
+
+  /**
+   * Checks whether a given hashtag is matched by the Bloom Filter.<br />
+   * 
+   * @return False iff the hashtag is definitely not acceptable, false if it is acceptable (including some uncertainty).
+   */
+  private boolean checkHashtag(final String hashtag)
+  {
+    if (caseInsensitive)
+    {
+      return filter.check(hashtag.toLowerCase());
+    }
+    else
+    {
+      return filter.check(hashtag);
+    }
+  }
+
+
+  /**
+   * Checks whether at least one of the tweets' hashtags is matched by the Bloom Filter.
+   */
+  private boolean checkTweetDisjunct(final Tweet tweet)
+  {
+    for (final String hashtag : tweet.getHashtags())
+    {
+      if (checkHashtag(hashtag))
+      {
+        if (countFalsePositives)
+        {
+          countFalsePositive(tweet.getId(), hashtag);
+        }
+
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+
+  /**
+   * Checks whether all of the tweets' hashtags are matched by the Bloom Filter.
+   */
+  private boolean checkTweetConjunct(final Tweet tweet)
+  {
+    for (final String hashtag : tweet.getHashtags())
+    {
+      if (!checkHashtag(hashtag))
+      {
+        return false;
+      }
+    }
+
+    if (tweet.getHashtags().isEmpty())
+    {
+      return false;
+    }
+    else
+    {
+      if (countFalsePositives)
+      {
+        countFalsePositives(tweet.getId(), tweet.getHashtags());
+      }
+
+      return true;
+    }
+  }
+
+
+  /**
+   * Helper to count false positive accepted tweets and their colliding hashtags for disjunction mode.
+   */
+  private void countFalsePositive(final long tweetId, final String hashtag)
+  {
+    if (caseInsensitive)
+    {
+      // List of filter-hashtags doesn't contain the hashtag (case-insensitive)
+      if (!trainedHashtags.contains(hashtag.toLowerCase()))
+      {
+        tweetsAcceptedFalsePositive++;
+        falsePositiveHashtags.add(hashtag);
+        // System.out.println(
+        // " False positive: Tweet[" + tweetId + "] with hashtag #" + hashtag + " matched (case-insensitive)");
+      }
+    }
+    else
+    {
+      // List of filter-hashtags doesn't contain the hashtag (case-sensitive)
+      if (!trainedHashtags.contains(hashtag))
+      {
+        tweetsAcceptedFalsePositive++;
+        falsePositiveHashtags.add(hashtag);
+        // System.out.println(" False positive: Tweet[" + tweetId + "] with hashtag #" + hashtag + " matched");
+      }
+    }
+  }
+
+
+  /**
+   * Helper to count false positive accepted tweets and their colliding hashtags for conjunction mode.
+   */
+  private void countFalsePositives(final long tweetId, final Collection<String> hashtags)
+  {
+    if (caseInsensitive)
+    {
+      boolean falsePositive = false;
+
+      for (String hashtag : hashtags)
+      {
+        // List of filter-hashtags doesn't contain the hashtag (case-insensitive)
+        if (!this.trainedHashtags.contains(hashtag.toLowerCase()))
+        {
+          falsePositiveHashtags.add(hashtag);
+          falsePositive = true;
+        }
+      }
+
+      if (falsePositive)
+      {
+        tweetsAcceptedFalsePositive++;
+      }
+    }
+    else
+    {
+      boolean falsePositive = false;
+
+      for (String hashtag : hashtags)
+      {
+        // List of filter-hashtags doesn't contain the hashtag (case-insensitive)
+        if (!this.trainedHashtags.contains(hashtag))
+        {
+          falsePositiveHashtags.add(hashtag);
+          falsePositive = true;
+        }
+      }
+
+      if (falsePositive)
+      {
+        tweetsAcceptedFalsePositive++;
+      }
+    }
+  }
+
+
+  /**
+   * Scans the lines of a Tweet file and decodes only the hashtags for checking them against the Bloom Filter. Tweets are only
+   * created if they are accepted, all others are replaced by {@link FilteringTweetByHashtags#DISCARDED}.
+   */
+  private class FilteringLineParser
+    implements LineParser<Tweet>
+  {
+
+    private final CheckCombinationMode mode;
+
+    private final ThreadLocal<ScannedTweet> scannedTweets = new ThreadLocal<ScannedTweet>()
+    {
+
+      @Override
+      protected ScannedTweet initialValue()
+      {
+        return new ScannedTweet();
+      }
+
+    };
+
+
+    public FilteringLineParser(final CheckCombinationMode mode)
+    {
+      this.mode = mode;
+    }
+
+
+    @Override
+    public Tweet parse(final ByteBuffer buffer, final int begin, final int end)
+    {
+      final ScannedTweet scanned = scannedTweets.get();
+      TweetScanner.scan(buffer, begin, end, scanned);
+
+      if (scanned.getHashtagCount() == 0)
+      {
+        return DISCARDED;
+      }
+
+      if (mode == CheckCombinationMode.DISJUNCTION)
+      {
+        for (int i = 0; i < scanned.getHashtagCount(); i++)
+        {
+          if (checkHashtag(buffer, scanned, i))
+          {
+            return scanned.toTweet();
+          }
+        }
+
+        return DISCARDED;
+      }
+      else
+      {
+        for (int i = 0; i < scanned.getHashtagCount(); i++)
+        {
+          if (!checkHashtag(buffer, scanned, i))
+          {
+            return DISCARDED;
+          }
+        }
+
+        return scanned.toTweet();
+      }
+    }
+
+
+    /**
+     * Checks the i-th hashtag of a scanned Tweet. Plain ASCII hashtags are probed by their bytes without decoding them, unless
+     * they have to be lower cased.
+     */
+    private boolean checkHashtag(final ByteBuffer buffer, final ScannedTweet scanned, final int i)
+    {
+      final int begin = scanned.getHashtagBegin(i);
+      final int end = scanned.getHashtagEnd(i);
+      if (TweetScanner.isPlainAscii(buffer, begin, end) && !(caseInsensitive && containsUpperCase(buffer, begin, end)))
+      {
+        return filter.check(buffer, begin, end);
+      }
+
+      return FilteringTweetByHashtags.this.checkHashtag(scanned.getHashtag(i));
+    }
+
+  }
+
+
+  private static boolean containsUpperCase(final ByteBuffer buffer, final int begin, final int end)
+  {
+    for (int i = begin; i < end; i++)
+    {
+      final byte b = buffer.get(i);
+      if (b >= 'A' && b <= 'Z')
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+
+  public enum CheckCombinationMode
+  {
+    DISJUNCTION, CONJUNCTION
+  }
+
+
+  public enum HashType
+  {
+    JAVA, MURMUR3, XXHASH64
+  }
+
+
+  /**
+   * Layout of the bins, see {@link BloomFilter}, {@link BlockedBloomFilter}, {@link CountingBloomFilter} and
+   * {@link ScalableBloomFilter}.
+   */
+  public enum FilterType
+  {
+    CLASSIC, BLOCKED, COUNTING, SCALABLE
+  }
+
+}
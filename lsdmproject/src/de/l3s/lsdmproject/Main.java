@@ -1,219 +1,706 @@
-package de.l3s.lsdmproject;
-
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-
-import com.google.gson.JsonSyntaxException;
-
-import de.l3s.lsdmproject.FilteringTweetByHashtags.CheckCombinationMode;
-import de.l3s.lsdmproject.model.Tweet;
-import de.l3s.lsdmproject.utils.StopWatch;
-
-
-public class Main
-{
-
-  public static void main(String[] args)
-    throws JsonSyntaxException, IOException
-  {
-    if (args == null || args.length < 1)
-    {
-      taskException();
-    }
-
-    Task task = null;
-
-    try
-    {
-      task = Task.valueOf(args[0].toUpperCase());
-    }
-    catch (IllegalArgumentException e)
-    {
-      taskException();
-    }
-
-    if (task == Task.FILTER)
-    {
-      filterMain(Arrays.copyOfRange(args, 1, args.length));
-    }
-    else if (task == Task.COUNT)
-    {
-      countMain(Arrays.copyOfRange(args, 1, args.length));
-    }
-
-  }
-
-
-  private static void taskException()
-  {
-    throw new IllegalArgumentException("No valid task given.\r\nPossible values: filter, count");
-  }
-
-
-  private static void filterMain(String[] args)
-    throws JsonSyntaxException, IOException
-  {
-    if (args.length < 6)
-    {
-      throw new IllegalArgumentException(
-          "Missing arguments.\r\nExpected: filter {bucketSize[int]} {caseInsensitive[bool]} {countFalsePositives[bool]} {ResultsCombinationMode[EVERY|ANY]} {sourceFilePath[String]} {hashtag[String]} ... {hashtag[String]}");
-    }
-
-    final int bucketSize;
-    final boolean caseInsensitive;
-    final boolean countFalsePositives;
-    final CheckCombinationMode mode;
-    final String sourceFile;
-    final String[] trainingHashtags;
-
-    // Parse Arguments
-    try
-    {
-      bucketSize = Integer.parseInt(args[0]);
-      caseInsensitive = Boolean.parseBoolean(args[1]);
-      countFalsePositives = Boolean.parseBoolean(args[2]);
-      mode = CheckCombinationMode.valueOf(args[3].toUpperCase());
-      sourceFile = args[4];
-      trainingHashtags = Arrays.copyOfRange(args, 5, args.length);
-    }
-    catch (Exception e)
-    {
-      throw new IllegalArgumentException("Filter: Something went wrong while parsing command-line arguments.", e);
-    }
-
-    System.out.println("[FilteringTweetByHashtags]");
-
-    System.out.println("");
-
-    System.out.println("Training Bloom Filter...");
-    final StopWatch initTimer = new StopWatch("Training Bloom Filter");
-    final FilteringTweetByHashtags fht =
-      new FilteringTweetByHashtags(trainingHashtags, caseInsensitive, bucketSize, countFalsePositives);
-    initTimer.end();
-    System.out.println("Done.");
-
-    System.out.println("");
-
-    System.out.println("Analyzing Tweet File...");
-    final StopWatch filterTimer = new StopWatch("Analyzing Tweet File");
-    final List<Tweet> filteredTweets = fht.analyzeTwitterFileDisjunct(sourceFile, mode);
-    fht.printLastStats();
-    filterTimer.end();
-    System.out.println("Done.");
-
-    System.out.println("");
-
-    System.out.println("Runtimes");
-    System.out.println("  " + initTimer.printEnd());
-    System.out.println("  " + filterTimer.printEnd());
-  }
-
-
-  private static void countMain(String[] args)
-    throws JsonSyntaxException, IOException
-  {
-    final boolean caseInsensitive;
-    final long n;
-    final boolean withActualCount;
-    final String sourceFile;
-    final String[] hashtags;
-    final Long[] ks;
-
-    try
-    {
-      caseInsensitive = Boolean.parseBoolean(args[0]);
-      if (args[1].equalsIgnoreCase("everything"))
-      {
-        n = System.currentTimeMillis();
-      }
-      else
-      {
-        n = Long.parseLong(args[1]) * 1000;
-      }
-      withActualCount = Boolean.parseBoolean(args[2]);
-      sourceFile = args[3];
-
-      final ArrayList<Long> ksList = new ArrayList<>();
-      final ArrayList<String> hashtagsList = new ArrayList<>();
-
-      for (int i = 4; i < args.length; i++)
-      {
-        if (args[i].matches("^\\d+$"))
-        {
-          ksList.add(Long.parseLong(args[i]) * 1000);
-        }
-        else
-        {
-          hashtagsList.add(args[i]);
-        }
-      }
-
-      String[] tempHashtags = new String[hashtagsList.size()];
-      hashtagsList.toArray(tempHashtags);
-      hashtags = tempHashtags;
-
-      Long[] tempKs = new Long[ksList.size()];
-      ksList.toArray(tempKs);
-      ks = tempKs;
-
-    }
-    catch (Exception e)
-    {
-      throw new IllegalArgumentException("Count: Something went wrong while parsing command-line arguments.", e);
-    }
-
-    System.out.println("[CountingHashTags]");
-
-    System.out.println("");
-
-    System.out.println("----------");
-    System.out.println("Parameters");
-    System.out.println("----------");
-    System.out.println("From file:              " + sourceFile);
-    System.out.println("For Hashtags:           " + Arrays.toString(hashtags));
-    System.out.println("Case insensitive:       " + caseInsensitive);
-    System.out.println("Counting timespans (k): " + Arrays.toString(ks) + " milliseconds");
-    System.out.println("Max Timespan (n):       " + n + " milliseconds");
-    System.out.println("Compare to actual:      " + withActualCount);
-    System.out.println("----------");
-
-    System.out.println("");
-
-    final CountingHashTags cht = new CountingHashTags(new HashSet<String>(Arrays.asList(hashtags)), caseInsensitive, n);
-
-    System.out.println("Processing source file...");
-    final StopWatch readInsertTimer = new StopWatch("Processing source file");
-    final long tweets = cht.analyzeTwitterFile(sourceFile, withActualCount);
-    System.out.println(tweets + " Tweets parsed");
-    System.out.println(readInsertTimer.printEnd());
-    System.out.println("");
-    System.out.println("");
-
-    final StopWatch[] stopWatches = new StopWatch[ks.length * hashtags.length];
-    int i = 0;
-    for (long k : ks)
-    {
-      for (String hashtag : hashtags)
-      {
-        stopWatches[i] = new StopWatch("Counting of " + Arrays.toString(hashtags) + " at " + k + " milliseconds");
-        CountingHashTags.showFrequency(k, withActualCount, cht, hashtag);
-        System.out.println("----------");
-        System.out.println("Runtime: " + stopWatches[i].diffString() + " milliseconds");
-        System.out.println("");
-        System.out.println("");
-        i++;
-      }
-
-    }
-  }
-
-
-  public enum Task
-  {
-    FILTER, COUNT
-  }
-
-}
+package de.l3s.lsdmproject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonSyntaxException;
+
+import de.l3s.lsdmproject.CountingHashTags.CounterType;
+import de.l3s.lsdmproject.CountingHashTags.WindowType;
+import de.l3s.lsdmproject.FilteringTweetByHashtags.CheckCombinationMode;
+import de.l3s.lsdmproject.FilteringTweetByHashtags.FilterType;
+import de.l3s.lsdmproject.FilteringTweetByHashtags.HashType;
+import de.l3s.lsdmproject.dgim.DGIMCount;
+import de.l3s.lsdmproject.dgim.DGIMSummary;
+import de.l3s.lsdmproject.dgim.WindowEstimate;
+import de.l3s.lsdmproject.ingest.EventLogWriter;
+import de.l3s.lsdmproject.model.Tweet;
+import de.l3s.lsdmproject.monitor.CsvSink;
+import de.l3s.lsdmproject.monitor.EstimateSink;
+import de.l3s.lsdmproject.monitor.PrintingSink;
+import de.l3s.lsdmproject.utils.StopWatch;
+
+
+public class Main
+{
+
+  public static void main(String[] args)
+    throws JsonSyntaxException, IOException
+  {
+    if (args == null || args.length < 1)
+    {
+      taskException();
+    }
+
+    Task task = null;
+
+    try
+    {
+      task = Task.valueOf(args[0].toUpperCase());
+    }
+    catch (IllegalArgumentException e)
+    {
+      taskException();
+    }
+
+    if (task == Task.FILTER)
+    {
+      filterMain(Arrays.copyOfRange(args, 1, args.length));
+    }
+    else if (task == Task.COUNT)
+    {
+      countMain(Arrays.copyOfRange(args, 1, args.length));
+    }
+    else if (task == Task.CONVERT)
+    {
+      convertMain(Arrays.copyOfRange(args, 1, args.length));
+    }
+    else if (task == Task.MERGE)
+    {
+      mergeMain(Arrays.copyOfRange(args, 1, args.length));
+    }
+    else if (task == Task.EVALUATE)
+    {
+      evaluateMain(Arrays.copyOfRange(args, 1, args.length));
+    }
+
+  }
+
+
+  private static void taskException()
+  {
+    throw new IllegalArgumentException("No valid task given.\r\nPossible values: filter, count, convert, merge, evaluate");
+  }
+
+
+  private static void filterMain(String[] args)
+    throws JsonSyntaxException, IOException
+  {
+    final Map<String, String> options = new HashMap<>();
+    args = extractOptions(args, options);
+
+    // The bucket size is omitted, if a false positive rate is given
+    final boolean withFalsePositiveRate = options.containsKey("fpr");
+    final int o = withFalsePositiveRate ? 0 : 1;
+
+    // The hashtags may be omitted, if a watch list is given
+    final File watchList = options.containsKey("watch-list") ? new File(options.get("watch-list")) : null;
+
+    if (args.length < 4 + o + (watchList == null ? 1 : 0))
+    {
+      throw new IllegalArgumentException(
+          "Missing arguments.\r\nExpected: filter {bucketSize[long]|--fpr=p} {caseInsensitive[bool]} {countFalsePositives[bool]} {ResultsCombinationMode[EVERY|ANY]} {sourceFilePath[String]} {hashtag[String]} ... {hashtag[String]}");
+    }
+
+    final long bucketSize;
+    final double falsePositiveRate;
+    final long expectedHashtags;
+    final HashType hashType;
+    final FilterType filterType;
+    final boolean caseInsensitive;
+    final boolean countFalsePositives;
+    final CheckCombinationMode mode;
+    final String sourceFile;
+    final String[] trainingHashtags;
+
+    // Parse Arguments
+    try
+    {
+      bucketSize = withFalsePositiveRate ? 0 : Long.parseLong(args[0]);
+      falsePositiveRate = Double.parseDouble(getOption(options, "fpr", "0"));
+      // By default, the filter is sized for the initial hashtags
+      expectedHashtags = Long.parseLong(getOption(options, "capacity", "-1"));
+      hashType = HashType.valueOf(getOption(options, "hash", "java").toUpperCase());
+      filterType = FilterType.valueOf(getOption(options, "filter", watchList != null ? "counting" : "classic").toUpperCase());
+      caseInsensitive = Boolean.parseBoolean(args[o]);
+      countFalsePositives = Boolean.parseBoolean(args[o + 1]);
+      mode = CheckCombinationMode.valueOf(args[o + 2].toUpperCase());
+      sourceFile = args[o + 3];
+      trainingHashtags = Arrays.copyOfRange(args, o + 4, args.length);
+    }
+    catch (Exception e)
+    {
+      throw new IllegalArgumentException("Filter: Something went wrong while parsing command-line arguments.", e);
+    }
+
+    if (watchList != null && filterType != FilterType.COUNTING)
+    {
+      throw new IllegalArgumentException("Watch lists are only supported with counting filters.");
+    }
+    else if (watchList != null && !watchList.isFile())
+    {
+      throw new IllegalArgumentException(watchList.getAbsolutePath() + " is not a valid file!");
+    }
+
+    // The hashtags of the watch list are trained initially, too
+    final List<String> initialHashtags = new ArrayList<>(Arrays.asList(trainingHashtags));
+    if (watchList != null)
+    {
+      initialHashtags.addAll(WatchListReloader.readHashtags(watchList));
+    }
+
+    System.out.println("[FilteringTweetByHashtags]");
+
+    System.out.println("");
+
+    System.out.println("Training Bloom Filter...");
+    if (withFalsePositiveRate)
+    {
+      System.out.println("  False positive rate:   " + falsePositiveRate);
+    }
+    final StopWatch initTimer = new StopWatch("Training Bloom Filter");
+    final String[] initialHashtagArray = initialHashtags.toArray(new String[initialHashtags.size()]);
+    final FilteringTweetByHashtags fht;
+    if (withFalsePositiveRate && expectedHashtags != -1)
+    {
+      fht = FilteringTweetByHashtags.withFalsePositiveRate(initialHashtagArray, caseInsensitive, expectedHashtags,
+          falsePositiveRate, filterType, countFalsePositives);
+    }
+    else if (withFalsePositiveRate)
+    {
+      fht = FilteringTweetByHashtags.withFalsePositiveRate(initialHashtagArray, caseInsensitive, falsePositiveRate, filterType,
+          countFalsePositives);
+    }
+    else
+    {
+      fht = new FilteringTweetByHashtags(initialHashtagArray, caseInsensitive, bucketSize, hashType, filterType,
+          countFalsePositives);
+    }
+    initTimer.end();
+    System.out.println("Done.");
+
+    System.out.println("");
+
+    System.out.println("Analyzing Tweet File...");
+    final StopWatch filterTimer = new StopWatch("Analyzing Tweet File");
+    final WatchListReloader reloader;
+    if (watchList != null)
+    {
+      System.out.println("  Watch list:            " + watchList.getAbsolutePath());
+      reloader = new WatchListReloader(fht, watchList, trainingHashtags, WatchListReloader.DEFAULT_INTERVAL_MS);
+      reloader.reload();
+      reloader.start();
+    }
+    else
+    {
+      reloader = null;
+    }
+    final List<Tweet> filteredTweets;
+    try
+    {
+      filteredTweets = fht.analyzeTwitterFileDisjunct(sourceFile, mode);
+    }
+    finally
+    {
+      if (reloader != null)
+      {
+        reloader.close();
+      }
+    }
+    fht.printLastStats();
+    filterTimer.end();
+    System.out.println("Done.");
+
+    System.out.println("");
+
+    System.out.println("Runtimes");
+    System.out.println("  " + initTimer.printEnd());
+    System.out.println("  " + filterTimer.printEnd());
+  }
+
+
+  private static void countMain(String[] args)
+    throws JsonSyntaxException, IOException
+  {
+    final boolean caseInsensitive;
+    final long n;
+    final boolean withActualCount;
+    final String sourceFile;
+    final String[] hashtags;
+    final Long[] ks;
+    final CounterType counterType;
+    final int bucketsPerSize;
+    final long emitInterval;
+    final WindowType windowType;
+
+    final Map<String, String> options = new HashMap<>();
+    args = extractOptions(args, options);
+
+    try
+    {
+      counterType = CounterType.valueOf(getOption(options, "buckets", "array").toUpperCase());
+      if (options.containsKey("epsilon"))
+      {
+        bucketsPerSize = DGIMCount.bucketsPerSizeForError(Double.parseDouble(options.get("epsilon")));
+      }
+      else
+      {
+        bucketsPerSize =
+          Integer.parseInt(getOption(options, "buckets-per-size", Integer.toString(DGIMCount.DEFAULT_BUCKETS_PER_SIZE)));
+      }
+      windowType = WindowType.valueOf(getOption(options, "window", "time").toUpperCase());
+      // Time windows are given in seconds, count windows in Tweets
+      final long unit = windowType == WindowType.COUNT ? 1 : 1000;
+      emitInterval = Long.parseLong(getOption(options, "emit", "0")) * unit;
+      caseInsensitive = Boolean.parseBoolean(args[0]);
+      if (args[1].equalsIgnoreCase("everything"))
+      {
+        n = windowType == WindowType.COUNT ? Long.MAX_VALUE : System.currentTimeMillis();
+      }
+      else
+      {
+        n = Long.parseLong(args[1]) * unit;
+      }
+      withActualCount = Boolean.parseBoolean(args[2]);
+      sourceFile = args[3];
+
+      final ArrayList<Long> ksList = new ArrayList<>();
+      final ArrayList<String> hashtagsList = new ArrayList<>();
+
+      for (int i = 4; i < args.length; i++)
+      {
+        if (args[i].matches("^\\d+$"))
+        {
+          ksList.add(Long.parseLong(args[i]) * unit);
+        }
+        else
+        {
+          hashtagsList.add(args[i]);
+        }
+      }
+
+      String[] tempHashtags = new String[hashtagsList.size()];
+      hashtagsList.toArray(tempHashtags);
+      hashtags = tempHashtags;
+
+      Long[] tempKs = new Long[ksList.size()];
+      ksList.toArray(tempKs);
+      ks = tempKs;
+
+    }
+    catch (Exception e)
+    {
+      throw new IllegalArgumentException("Count: Something went wrong while parsing command-line arguments.", e);
+    }
+
+    final CountingHashTags cht = new CountingHashTags(new HashSet<String>(Arrays.asList(hashtags)), caseInsensitive, n,
+        counterType, bucketsPerSize, windowType);
+    final String windowUnit = cht.getWindowUnit();
+
+    System.out.println("[CountingHashTags]");
+
+    System.out.println("");
+
+    System.out.println("----------");
+    System.out.println("Parameters");
+    System.out.println("----------");
+    System.out.println("From file:              " + sourceFile);
+    System.out.println("For Hashtags:           " + Arrays.toString(hashtags));
+    System.out.println("Case insensitive:       " + caseInsensitive);
+    System.out.println("Counting timespans (k): " + Arrays.toString(ks) + " " + windowUnit);
+    System.out.println("Max Timespan (n):       " + n + " " + windowUnit);
+    System.out.println("Compare to actual:      " + withActualCount);
+    System.out.println("Window type:            " + windowType);
+    System.out.println("Bucket store:           " + counterType);
+    System.out.println("Buckets per size (r):   " + bucketsPerSize);
+    System.out.println("Error bound:            < "
+        + String.format("%.3f", DGIMCount.errorBoundForBucketsPerSize(bucketsPerSize) * 100.0) + "%");
+    System.out.println("----------");
+
+    System.out.println("");
+
+    if (options.containsKey("checkpoint"))
+    {
+      final long intervalMb = Long.parseLong(getOption(options, "checkpoint-interval", "256"));
+      cht.enableCheckpoints(new File(options.get("checkpoint")), intervalMb * 1024 * 1024);
+    }
+    if (options.containsKey("lateness"))
+    {
+      final int capacity = Integer.parseInt(getOption(options, "reorder-capacity", "1000000"));
+      cht.enableReordering(Long.parseLong(options.get("lateness")) * 1000, capacity);
+    }
+
+    // Standing queries emit the counts of all hashtags and windows while the source file is processed
+    CsvSink csvSink = null;
+    if (emitInterval > 0)
+    {
+      final EstimateSink sink;
+      if (options.containsKey("emit-csv"))
+      {
+        csvSink = new CsvSink(new File(options.get("emit-csv")));
+        sink = csvSink;
+      }
+      else
+      {
+        sink = new PrintingSink(System.out, windowUnit);
+      }
+
+      for (String hashtag : hashtags)
+      {
+        for (long k : ks)
+        {
+          cht.registerStandingQuery(hashtag, k, emitInterval, sink);
+        }
+      }
+    }
+
+    System.out.println("Processing source file...");
+    final StopWatch readInsertTimer = new StopWatch("Processing source file");
+    final long tweets;
+    try
+    {
+      tweets = cht.analyzeTwitterFile(sourceFile, withActualCount);
+    }
+    finally
+    {
+      if (csvSink != null)
+      {
+        csvSink.close();
+      }
+    }
+    System.out.println(tweets + " Tweets parsed");
+    if (options.containsKey("lateness"))
+    {
+      System.out.println(cht.getDroppedTweetCount() + " Tweets dropped, arrived too late");
+    }
+    if (csvSink != null)
+    {
+      System.out.println("Standing query estimates written to " + new File(options.get("emit-csv")).getAbsolutePath());
+    }
+    System.out.println("Estimated DGIM memory: " + cht.getMemoryEstimate() + " bytes");
+    System.out.println(readInsertTimer.printEnd());
+    if (options.containsKey("summary"))
+    {
+      final File summaryFile = new File(options.get("summary"));
+      cht.writeSummaries(summaryFile);
+      System.out.println("Summaries written to " + summaryFile.getAbsolutePath());
+    }
+    System.out.println("");
+    System.out.println("");
+
+    // All windows of a hashtag are counted at once
+    final long[] windows = new long[ks.length];
+    for (int i = 0; i < ks.length; i++)
+    {
+      windows[i] = ks[i];
+    }
+
+    final StopWatch queryTimer = new StopWatch("Counting of " + Arrays.toString(hashtags) + " at " + Arrays.toString(ks));
+    final HashMap<String, WindowEstimate[]> estimates = new HashMap<>();
+    for (String hashtag : hashtags)
+    {
+      estimates.put(hashtag, cht.countAll(hashtag, windows));
+    }
+    System.out.println(queryTimer.printEnd());
+    System.out.println("");
+
+    for (int i = 0; i < ks.length; i++)
+    {
+      for (String hashtag : hashtags)
+      {
+        CountingHashTags.showFrequency(estimates.get(hashtag)[i], withActualCount, cht, hashtag);
+        System.out.println("----------");
+        System.out.println("");
+        System.out.println("");
+      }
+
+    }
+  }
+
+
+  private static void convertMain(String[] args)
+    throws JsonSyntaxException, IOException
+  {
+    if (args.length < 2)
+    {
+      throw new IllegalArgumentException(
+          "Missing arguments.\r\nExpected: convert {sourceFilePath[String]} {targetFilePath[String]}");
+    }
+
+    final File sourceFile = new File(args[0]);
+    final File targetFile = new File(args[1]);
+    if (!sourceFile.isFile())
+    {
+      throw new IllegalArgumentException(sourceFile.getAbsolutePath() + " is not a valid file!");
+    }
+
+    System.out.println("[ConvertingTweetFile]");
+
+    System.out.println("");
+
+    System.out.println("----------");
+    System.out.println("Parameters");
+    System.out.println("----------");
+    System.out.println("From file:              " + sourceFile.getAbsolutePath());
+    System.out.println("To event log:           " + targetFile.getAbsolutePath());
+    System.out.println("----------");
+
+    System.out.println("");
+
+    System.out.println("Converting source file...");
+    final StopWatch convertTimer = new StopWatch("Converting source file");
+    final long tweets = EventLogWriter.convert(sourceFile, targetFile);
+    System.out.println(tweets + " Tweets converted");
+    System.out.println(sourceFile.length() + " bytes -> " + targetFile.length() + " bytes");
+    System.out.println(convertTimer.printEnd());
+  }
+
+
+  private static void mergeMain(String[] args)
+    throws IOException
+  {
+    final ArrayList<File> summaryFiles = new ArrayList<>();
+    final ArrayList<Long> ksList = new ArrayList<>();
+    for (String arg : args)
+    {
+      if (arg.matches("^\\d+$"))
+      {
+        ksList.add(Long.parseLong(arg) * 1000);
+      }
+      else
+      {
+        summaryFiles.add(new File(arg));
+      }
+    }
+
+    if (summaryFiles.isEmpty() || ksList.isEmpty())
+    {
+      throw new IllegalArgumentException(
+          "Missing arguments.\r\nExpected: merge {summaryFilePath[String]} ... {summaryFilePath[String]} {timespan[long]} ... {timespan[long]}");
+    }
+
+    final long[] ks = new long[ksList.size()];
+    for (int i = 0; i < ks.length; i++)
+    {
+      ks[i] = ksList.get(i);
+    }
+
+    System.out.println("[MergingSummaries]");
+
+    System.out.println("");
+
+    System.out.println("----------");
+    System.out.println("Parameters");
+    System.out.println("----------");
+    System.out.println("From files:             " + summaryFiles);
+    System.out.println("Counting timespans (k): " + Arrays.toString(ks) + " milliseconds");
+    System.out.println("----------");
+
+    System.out.println("");
+
+    // Group the summaries of all partitions by hashtag. Count-based windows can't be merged, as each partition counts the positions
+    // of its own Tweets.
+    final StopWatch mergeTimer = new StopWatch("Merging summaries");
+    final LinkedHashMap<String, List<DGIMSummary>> partitions = new LinkedHashMap<>();
+    for (File summaryFile : summaryFiles)
+    {
+      for (DGIMSummary summary : CountingHashTags.readSummaries(summaryFile, WindowType.TIME))
+      {
+        if (!partitions.containsKey(summary.getName()))
+        {
+          partitions.put(summary.getName(), new ArrayList<DGIMSummary>());
+        }
+        partitions.get(summary.getName()).add(summary);
+      }
+    }
+
+    final LinkedHashMap<String, DGIMSummary> merged = new LinkedHashMap<>();
+    for (Map.Entry<String, List<DGIMSummary>> entry : partitions.entrySet())
+    {
+      final List<DGIMSummary> parts = entry.getValue();
+      merged.put(entry.getKey(), DGIMSummary.merge(entry.getKey(), parts.toArray(new DGIMSummary[parts.size()])));
+    }
+    System.out.println(mergeTimer.printEnd());
+    System.out.println("");
+    System.out.println("");
+
+    for (Map.Entry<String, DGIMSummary> entry : merged.entrySet())
+    {
+      final WindowEstimate[] estimates = entry.getValue().count(ks);
+      for (WindowEstimate estimate : estimates)
+      {
+        System.out.println("Count #" + entry.getKey() + " @ T-" + estimate.getK() + " milliseconds");
+        System.out.println("-----------");
+        System.out.println(estimate.getEstimate() + " times (" + estimate.getLowerBound() + " - " + estimate.getUpperBound()
+            + "), merged from " + partitions.get(entry.getKey()).size() + " partitions");
+        System.out.println("");
+        System.out.println("");
+      }
+    }
+  }
+
+
+  private static void evaluateMain(String[] args)
+    throws IOException
+  {
+    final boolean caseInsensitive;
+    final long n;
+    final String sourceFile;
+    final String[] hashtags;
+    final long[] ks;
+    final CounterType counterType;
+    final int[] bucketsPerSizes;
+    final WindowType windowType;
+    final int sampleCount;
+
+    final Map<String, String> options = new HashMap<>();
+    args = extractOptions(args, options);
+
+    try
+    {
+      counterType = CounterType.valueOf(getOption(options, "buckets", "array").toUpperCase());
+      final String[] rs = getOption(options, "buckets-per-size", Integer.toString(DGIMCount.DEFAULT_BUCKETS_PER_SIZE)).split(",");
+      bucketsPerSizes = new int[rs.length];
+      for (int i = 0; i < rs.length; i++)
+      {
+        bucketsPerSizes[i] = Integer.parseInt(rs[i].trim());
+      }
+      windowType = WindowType.valueOf(getOption(options, "window", "time").toUpperCase());
+      sampleCount = Integer.parseInt(getOption(options, "samples", "1000"));
+
+      // Time windows are given in seconds, count windows in Tweets
+      final long unit = windowType == WindowType.COUNT ? 1 : 1000;
+      caseInsensitive = Boolean.parseBoolean(args[0]);
+      if (args[1].equalsIgnoreCase("everything"))
+      {
+        n = windowType == WindowType.COUNT ? Long.MAX_VALUE : System.currentTimeMillis();
+      }
+      else
+      {
+        n = Long.parseLong(args[1]) * unit;
+      }
+      sourceFile = args[2];
+
+      final ArrayList<Long> ksList = new ArrayList<>();
+      final ArrayList<String> hashtagsList = new ArrayList<>();
+      for (int i = 3; i < args.length; i++)
+      {
+        if (args[i].matches("^\\d+$"))
+        {
+          ksList.add(Long.parseLong(args[i]) * unit);
+        }
+        else
+        {
+          hashtagsList.add(args[i]);
+        }
+      }
+
+      hashtags = hashtagsList.toArray(new String[hashtagsList.size()]);
+      ks = new long[ksList.size()];
+      for (int i = 0; i < ks.length; i++)
+      {
+        ks[i] = ksList.get(i);
+      }
+    }
+    catch (Exception e)
+    {
+      throw new IllegalArgumentException("Evaluate: Something went wrong while parsing command-line arguments.", e);
+    }
+
+    if (hashtags.length == 0 || ks.length == 0)
+    {
+      throw new IllegalArgumentException(
+          "Missing arguments.\r\nExpected: evaluate {caseInsensitive[bool]} {maxTimespan[long]} {sourceFilePath[String]} {hashtag[String]} ... {timespan[long]} ...");
+    }
+
+    System.out.println("[EvaluatingCounters]");
+
+    System.out.println("");
+
+    System.out.println("----------");
+    System.out.println("Parameters");
+    System.out.println("----------");
+    System.out.println("From file:              " + sourceFile);
+    System.out.println("For Hashtags:           " + Arrays.toString(hashtags));
+    System.out.println("Case insensitive:       " + caseInsensitive);
+    System.out.println("Counting timespans (k): " + Arrays.toString(ks));
+    System.out.println("Max Timespan (n):       " + n);
+    System.out.println("Window type:            " + windowType);
+    System.out.println("Bucket store:           " + counterType);
+    System.out.println("Buckets per size (r):   " + Arrays.toString(bucketsPerSizes));
+    System.out.println("Samples:                " + sampleCount);
+    System.out.println("----------");
+
+    System.out.println("");
+
+    final EvaluatingCounters evaluation = new EvaluatingCounters(new HashSet<String>(Arrays.asList(hashtags)), caseInsensitive,
+        n, windowType);
+
+    System.out.println("Loading source file...");
+    final StopWatch loadTimer = new StopWatch("Loading source file");
+    final long tweets = evaluation.loadSourceFile(sourceFile);
+    System.out.println(tweets + " Tweets parsed, " + evaluation.getMatchCount() + " matches");
+    System.out.println(loadTimer.printEnd());
+    System.out.println("");
+
+    final StopWatch evaluationTimer = new StopWatch("Evaluating counters");
+    final ArrayList<EvaluatingCounters.Result> results = new ArrayList<>();
+    for (int r : bucketsPerSizes)
+    {
+      results.addAll(Arrays.asList(evaluation.evaluate(counterType, r, ks, sampleCount)));
+    }
+    System.out.println(evaluationTimer.printEnd());
+    System.out.println("");
+
+    if (options.containsKey("csv"))
+    {
+      final File csvFile = new File(options.get("csv"));
+      try (PrintStream out = new PrintStream(csvFile, "UTF-8"))
+      {
+        EvaluatingCounters.writeCsv(results, out);
+      }
+      System.out.println("Results written to " + csvFile.getAbsolutePath());
+    }
+    else
+    {
+      EvaluatingCounters.writeCsv(results, System.out);
+    }
+  }
+
+
+  /**
+   * Removes all options of the form --name=value from the arguments and puts them into the given map.
+   *
+   * @return The remaining arguments.
+   */
+  private static String[] extractOptions(final String[] args, final Map<String, String> options)
+  {
+    final ArrayList<String> remaining = new ArrayList<>();
+    for (final String arg : args)
+    {
+      final int separator = arg.indexOf('=');
+      if (arg.startsWith("--") && separator > 2)
+      {
+        options.put(arg.substring(2, separator).toLowerCase(), arg.substring(separator + 1));
+      }
+      else
+      {
+        remaining.add(arg);
+      }
+    }
+
+    return remaining.toArray(new String[remaining.size()]);
+  }
+
+
+  private static String getOption(final Map<String, String> options, final String name, final String defaultValue)
+  {
+    final String value = options.get(name);
+    return value == null ? defaultValue : value;
+  }
+
+
+  public enum Task
+  {
+    FILTER, COUNT, CONVERT, MERGE, EVALUATE
+  }
+
+}
@@ -0,0 +1,201 @@
+package de.l3s.lsdmproject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Keeps the watched hashtags of a {@link FilteringTweetByHashtags} in sync with a file, while a source file is analyzed.<br />
+ * The file lists one hashtag per line, empty lines are ignored. A daemon thread checks it for modifications periodically, then
+ * hashtags added to the file are watched and hashtags removed from it are unwatched. The fixed hashtags (e.g. given on the command
+ * line) stay watched in any case.
+ *
+ * @author Sebastian
+ *
+ */
+public class WatchListReloader
+  implements Closeable
+{
+
+  /**
+   * Milliseconds between two checks of the file by default.
+   */
+  public static final long DEFAULT_INTERVAL_MS = 1000;
+
+  private final FilteringTweetByHashtags filter;
+
+  private final File file;
+
+  private final Set<String> fixedHashtags = new HashSet<>();
+
+  /**
+   * The hashtags of the file at its latest reload.
+   */
+  private Set<String> loadedHashtags = new HashSet<>();
+
+  private long lastModified = -1;
+
+  private final Thread thread;
+
+  private volatile boolean closed = false;
+
+
+  /**
+   * @param intervalMs
+   *          Milliseconds between two checks of the file.
+   */
+  public WatchListReloader(final FilteringTweetByHashtags filter, final File file, final String[] fixedHashtags,
+      final long intervalMs)
+  {
+    if (intervalMs < 1)
+    {
+      throw new IllegalArgumentException("Reload interval must be greater than or equal to 1.");
+    }
+
+    this.filter = filter;
+    this.file = file;
+    for (final String hashtag : fixedHashtags)
+    {
+      this.fixedHashtags.add(normalize(hashtag));
+    }
+
+    thread = new Thread(new Runnable()
+    {
+
+      @Override
+      public void run()
+      {
+        while (!closed)
+        {
+          try
+          {
+            Thread.sleep(intervalMs);
+            reload();
+          }
+          catch (InterruptedException e)
+          {
+            return;
+          }
+          catch (IOException e)
+          {
+            // The file may be replaced right now, try again next time
+            System.out.println("  Reloading watch list failed: " + e.getMessage());
+          }
+        }
+      }
+
+    }, "WatchListReloader");
+    thread.setDaemon(true);
+  }
+
+
+  /**
+   * Starts checking the file periodically.
+   */
+  public void start()
+  {
+    thread.start();
+  }
+
+
+  /**
+   * Applies the changes of the file since the latest reload, if it was modified.
+   *
+   * @return Whether the file was modified.
+   */
+  public synchronized boolean reload()
+    throws IOException
+  {
+    final long modified = file.lastModified();
+    if (modified == lastModified)
+    {
+      return false;
+    }
+    lastModified = modified;
+
+    final Set<String> hashtags = new HashSet<>();
+    for (final String hashtag : readHashtags(file))
+    {
+      hashtags.add(normalize(hashtag));
+    }
+
+    int added = 0;
+    for (final String hashtag : hashtags)
+    {
+      if (!loadedHashtags.contains(hashtag) && filter.watch(hashtag))
+      {
+        added++;
+      }
+    }
+
+    int removed = 0;
+    for (final String hashtag : loadedHashtags)
+    {
+      if (!hashtags.contains(hashtag) && !fixedHashtags.contains(hashtag) && filter.unwatch(hashtag))
+      {
+        removed++;
+      }
+    }
+
+    loadedHashtags = hashtags;
+    if (added > 0 || removed > 0)
+    {
+      System.out.println("  Watch list reloaded:   +" + added + " -" + removed + " hashtags, "
+          + filter.getWatchedHashtags().size() + " watched");
+    }
+
+    return true;
+  }
+
+
+  private String normalize(final String hashtag)
+  {
+    return filter.caseInsensitive ? hashtag.toLowerCase() : hashtag;
+  }
+
+
+  /**
+   * Reads the hashtags of a watch list file, one per line.
+   */
+  public static List<String> readHashtags(final File file)
+    throws IOException
+  {
+    final List<String> hashtags = new ArrayList<>();
+    for (final String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))
+    {
+      if (!line.trim().isEmpty())
+      {
+        hashtags.add(line.trim());
+      }
+    }
+
+    return hashtags;
+  }
+
+
+  /**
+   * Stops checking the file.
+   */
+  @Override
+  public void close()
+  {
+    closed = true;
+    thread.interrupt();
+    try
+    {
+      thread.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
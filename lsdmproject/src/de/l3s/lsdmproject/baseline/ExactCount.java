@@ -0,0 +1,174 @@
+package de.l3s.lsdmproject.baseline;
+
+import de.l3s.lsdmproject.dgim.StreamClock;
+
+
+/**
+ * Counts the 1's within a sliding window exactly, as a baseline for the DGIM counters.<br />
+ * The times of all 1's within the maximum storage length are kept in a ring buffer, from the oldest to the newest one. Like the
+ * DGIM counters, a 1 is assigned to the latest time of the clock, so the times are in ascending order. Expired times are removed
+ * from the oldest end and a count is a binary search for the oldest time within the window.
+ *
+ * @author Sebastian
+ *
+ */
+public class ExactCount
+{
+
+  private String name;
+
+  private final StreamClock clock;
+
+  private final long maximumStorageLength;
+
+  private long[] times = new long[64];
+
+  /**
+   * Ring buffer position of the oldest time.
+   */
+  private int oldest = 0;
+
+  private int size = 0;
+
+
+  public ExactCount(final long n, final String name)
+  {
+    this(n, name, new StreamClock());
+  }
+
+
+  /**
+   * Instantiates a counter, that shares the given clock with other counters. Inserting 0's is not necessary then.
+   */
+  public ExactCount(final long n, final String name, final StreamClock clock)
+  {
+    if (n < 1)
+    {
+      throw new IllegalArgumentException("Maximum size (n) must be greater than or equal to 1.");
+    }
+
+    this.name = name;
+    this.clock = clock;
+    this.maximumStorageLength = n;
+  }
+
+
+  /**
+   * Inserts a new value in front of the stream. True for 1, false for 0.
+   */
+  public void insert(final long timestamp, final boolean value)
+  {
+    // Can't handle tweets without timestamp
+    if (timestamp == -1)
+    {
+      return;
+    }
+
+    clock.advance(timestamp);
+
+    // Count only ones (boolean true)
+    if (value)
+    {
+      discardOldTimes();
+      if (size == times.length)
+      {
+        grow();
+      }
+      times[(oldest + size) % times.length] = clock.getTime();
+      size++;
+    }
+  }
+
+
+  /**
+   * Removes all times outside of the maximum storage length.
+   */
+  private void discardOldTimes()
+  {
+    final long timer = clock.getTime();
+    while (size > 0 && times[oldest] < (timer - maximumStorageLength))
+    {
+      oldest = (oldest + 1) % times.length;
+      size--;
+    }
+  }
+
+
+  /**
+   * Doubles the capacity and moves the oldest time to the first position.
+   */
+  private void grow()
+  {
+    final long[] grown = new long[2 * times.length];
+    final int firstPart = Math.min(size, times.length - oldest);
+    System.arraycopy(times, oldest, grown, 0, firstPart);
+    System.arraycopy(times, 0, grown, firstPart, size - firstPart);
+    times = grown;
+    oldest = 0;
+  }
+
+
+  /**
+   * Count 1's within the latest k elements exactly.
+   *
+   * @param k
+   *          Number of elements to consider.
+   * @return The count or 0 for negative k.
+   */
+  public long count(final long k)
+  {
+    if (k < 1)
+    {
+      return 0;
+    }
+    else if (k > maximumStorageLength)
+    {
+      throw new IllegalArgumentException(
+          "Value of k must be less than or equal to maximum stream length n (" + maximumStorageLength + ").");
+    }
+
+    discardOldTimes();
+
+    // Binary search for the oldest time within the window of k, i.e. (timer - time) <= k
+    final long windowBegin = clock.getTime() - k;
+    int low = 0;
+    int high = size;
+    while (low < high)
+    {
+      final int middle = (low + high) >>> 1;
+      if (times[(oldest + middle) % times.length] < windowBegin)
+      {
+        low = middle + 1;
+      }
+      else
+      {
+        high = middle;
+      }
+    }
+
+    return size - low;
+  }
+
+
+  /**
+   * Number of bytes occupied by the ring buffer.
+   */
+  public long getMemoryEstimate()
+  {
+    return 8L * times.length;
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "ExactCount(" + name + "): Timestamp[" + clock.getTime() + "] " + size + " ones";
+  }
+
+}
@@ -0,0 +1,103 @@
+package de.l3s.lsdmproject.benchmark;
+
+import java.util.Random;
+
+import de.l3s.lsdmproject.bloom.BlockedBloomFilter;
+import de.l3s.lsdmproject.bloom.BloomFilter;
+import de.l3s.lsdmproject.bloom.MembershipFilter;
+
+
+/**
+ * Compares the time per check of a {@link BlockedBloomFilter} with a classic {@link BloomFilter} of the same size, for trained
+ * hashtags (all k positions are read) and for others (reading stops at the first bin not set). Both are sized for the given
+ * number of hashtags and false positive rate, by default larger than common caches.<br />
+ * Arguments (optional): number of trained hashtags, false positive rate, number of checks per round.
+ *
+ * @author Sebastian
+ *
+ */
+public class BlockedBloomFilterBenchmark
+{
+
+  private static final int ROUNDS = 5;
+
+
+  public static void main(String[] args)
+  {
+    final int trainedCount = args.length > 0 ? Integer.parseInt(args[0]) : 50000000;
+    final double falsePositiveRate = args.length > 1 ? Double.parseDouble(args[1]) : 0.01;
+    final int checkCount = args.length > 2 ? Integer.parseInt(args[2]) : 10000000;
+
+    // Probes of trained and of other hashtags, spread over the whole filter
+    final Random random = new Random(42);
+    final String[] trainedProbes = new String[1 << 20];
+    final String[] otherProbes = new String[1 << 20];
+    for (int i = 0; i < trainedProbes.length; i++)
+    {
+      trainedProbes[i] = "hashtag" + random.nextInt(trainedCount);
+      otherProbes[i] = "other" + random.nextInt(trainedCount);
+    }
+
+    System.out.println("[BlockedBloomFilterBenchmark]");
+    System.out.println("Trained hashtags:       " + trainedCount);
+    System.out.println("False positive rate:    " + falsePositiveRate);
+    System.out.println("Checks per round:       " + checkCount);
+    System.out.println("");
+
+    for (int type = 0; type < 2; type++)
+    {
+      final MembershipFilter filter = type == 0
+          ? BloomFilter.forFalsePositiveRate(trainedCount, falsePositiveRate)
+          : BlockedBloomFilter.forFalsePositiveRate(trainedCount, falsePositiveRate);
+      for (int i = 0; i < trainedCount; i++)
+      {
+        filter.train("hashtag" + i);
+      }
+
+      System.out.println(filter.getClass().getSimpleName() + " (" + filter.getMemoryEstimate() / (1024 * 1024) + " MB)");
+      System.out.println("  Hash functions:       " + filter.getPrettyHashFunctions());
+
+      for (int round = 0; round < ROUNDS; round++)
+      {
+        final double trainedNanos = measure(filter, trainedProbes, checkCount);
+        final double otherNanos = measure(filter, otherProbes, checkCount);
+        System.out.println(String.format("  %6.1f ns/check (trained) %6.1f ns/check (other)", trainedNanos, otherNanos));
+      }
+
+      long falsePositives = 0;
+      for (final String probe : otherProbes)
+      {
+        if (filter.check(probe))
+        {
+          falsePositives++;
+        }
+      }
+      System.out.println(String.format("  False positive rate:  %.4f", falsePositives / (double) otherProbes.length));
+      System.out.println("");
+    }
+  }
+
+
+  private static double measure(final MembershipFilter filter, final String[] probes, final int checkCount)
+  {
+    long matches = 0;
+    final long start = System.nanoTime();
+    for (int i = 0; i < checkCount; i++)
+    {
+      if (filter.check(probes[i & (probes.length - 1)]))
+      {
+        matches++;
+      }
+    }
+    final long nanos = System.nanoTime() - start;
+
+    // Use the matches, so that checking is not optimized away
+    if (matches < 0)
+    {
+      System.out.println(matches);
+    }
+
+    return nanos / (double) checkCount;
+  }
+
+}
@@ -0,0 +1,155 @@
+package de.l3s.lsdmproject.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.l3s.lsdmproject.bloom.BloomFilter;
+import de.l3s.lsdmproject.bloom.HashCombo;
+import de.l3s.lsdmproject.bloom.JavaStringHash;
+import de.l3s.lsdmproject.bloom.StringLengthHash;
+
+
+/**
+ * Measures the time and the allocated bytes per {@link BloomFilter#check(String)}, compared to checking a list of boxed positions
+ * like before.<br />
+ * Arguments (optional): number of bins, number of trained hashtags, number of checks per round.
+ *
+ * @author Sebastian
+ *
+ */
+public class BloomFilterBenchmark
+{
+
+  private static final int ROUNDS = 5;
+
+
+  public static void main(String[] args)
+  {
+    final long n = args.length > 0 ? Long.parseLong(args[0]) : 1L << 20;
+    final int trainedCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    final int checkCount = args.length > 2 ? Integer.parseInt(args[2]) : 10000000;
+
+    final HashCombo hashCombo = new HashCombo(n, new JavaStringHash(n));
+    hashCombo.addHashFunction(new StringLengthHash(n));
+    final BloomFilter filter = new BloomFilter(n, hashCombo);
+
+    // Half of the probes are trained, the other half are random
+    final Random random = new Random(42);
+    final String[] probes = new String[4096];
+    for (int i = 0; i < probes.length; i++)
+    {
+      probes[i] = "hashtag" + random.nextInt(2 * trainedCount);
+    }
+    for (int i = 0; i < trainedCount; i++)
+    {
+      filter.train("hashtag" + i);
+    }
+
+    System.out.println("[BloomFilterBenchmark]");
+    System.out.println("Bins (n):               " + n);
+    System.out.println("Hash functions:         " + filter.getPrettyHashFunctions());
+    System.out.println("Trained hashtags:       " + trainedCount);
+    System.out.println("Checks per round:       " + checkCount);
+    System.out.println("");
+
+    for (int round = 0; round < ROUNDS; round++)
+    {
+      measure("check (early exit)", checkCount, new Probe()
+      {
+
+        @Override
+        public boolean check(final String input)
+        {
+          return filter.check(input);
+        }
+
+      }, probes);
+
+      final long[] positions = new long[hashCombo.size()];
+      measure("check (caller array)", checkCount, new Probe()
+      {
+
+        @Override
+        public boolean check(final String input)
+        {
+          hashCombo.hash(input, positions);
+          return filter.check(positions, positions.length);
+        }
+
+      }, probes);
+
+      measure("check (boxed list)", checkCount, new Probe()
+      {
+
+        @Override
+        public boolean check(final String input)
+        {
+          final ArrayList<Long> hashes = new ArrayList<>(hashCombo.size());
+          for (int i = 0; i < hashCombo.size(); i++)
+          {
+            hashes.add(hashCombo.hash(input, i));
+          }
+
+          for (final Long hash : hashes)
+          {
+            positions[0] = hash;
+            if (!filter.check(positions, 1))
+            {
+              return false;
+            }
+          }
+
+          return true;
+        }
+
+      }, probes);
+
+      System.out.println("");
+    }
+  }
+
+
+  private static void measure(final String name, final int checkCount, final Probe probe, final String[] probes)
+  {
+    final long allocatedBefore = getAllocatedBytes();
+    final long start = System.nanoTime();
+    long matches = 0;
+    for (int i = 0; i < checkCount; i++)
+    {
+      if (probe.check(probes[i & (probes.length - 1)]))
+      {
+        matches++;
+      }
+    }
+    final long nanos = System.nanoTime() - start;
+    final long allocated = getAllocatedBytes() - allocatedBefore;
+
+    System.out.println(String.format("%-24s%8.1f ns/check %8.2f bytes/check (%d matches)", name + ":",
+        nanos / (double) checkCount, allocated / (double) checkCount, matches));
+  }
+
+
+  /**
+   * Bytes allocated by the current thread so far, or 0 if the JVM doesn't tell.
+   */
+  private static long getAllocatedBytes()
+  {
+    final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean)
+    {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    return 0;
+  }
+
+
+  private interface Probe
+  {
+
+    boolean check(String input);
+
+  }
+
+}
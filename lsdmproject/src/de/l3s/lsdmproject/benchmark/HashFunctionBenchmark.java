@@ -0,0 +1,140 @@
+package de.l3s.lsdmproject.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import de.l3s.lsdmproject.bloom.BloomFilter;
+import de.l3s.lsdmproject.bloom.HashCombo;
+import de.l3s.lsdmproject.bloom.HashFunction;
+import de.l3s.lsdmproject.bloom.JavaStringHash;
+import de.l3s.lsdmproject.bloom.Murmur3Hash;
+import de.l3s.lsdmproject.bloom.StringLengthHash;
+import de.l3s.lsdmproject.bloom.XxHash64;
+
+
+/**
+ * Compares the hash functions of the Bloom Filter by their throughput and by the quality of their distribution.<br />
+ * Throughput is measured for Strings and for ranges of UTF-8 bytes. (Strings cache their hashCode(), so it is only computed once
+ * per String.) The distribution is measured on similar hashtags (like
+ * ebola2014 and ebola2015): the chi-square statistic of hashing them into bins, divided by its degrees of freedom, should be
+ * close to 1 for a uniform hash. Finally, the false positive rates of Bloom Filters with 2 hash functions and the same memory are
+ * compared with the theoretical one.<br />
+ * Arguments (optional): number of hashtags, number of hashes per round.
+ *
+ * @author Sebastian
+ *
+ */
+public class HashFunctionBenchmark
+{
+
+  private static final int ROUNDS = 5;
+
+  private static final long BINS = 65536;
+
+
+  public static void main(String[] args)
+  {
+    final int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    final int hashCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000000;
+
+    final HashFunction[] functions = { new JavaStringHash(BINS), new Murmur3Hash(BINS), new XxHash64(BINS) };
+
+    // Hashtags of usual lengths, stored as Strings and back to back as bytes
+    final String[] keys = new String[4096];
+    final int[] offsets = new int[keys.length + 1];
+    final ByteBuffer bytes = ByteBuffer.allocate(64 * keys.length);
+    for (int i = 0; i < keys.length; i++)
+    {
+      keys[i] = (i % 3 == 0 ? "ebola" : i % 3 == 1 ? "StopEbolaNow" : "ebolaoutbreakwestafrica") + i;
+      bytes.put(keys[i].getBytes(StandardCharsets.UTF_8));
+      offsets[i + 1] = bytes.position();
+    }
+
+    System.out.println("[HashFunctionBenchmark]");
+    System.out.println("Hashes per round:       " + hashCount);
+    System.out.println("");
+
+    System.out.println("Throughput");
+    for (int round = 0; round < ROUNDS; round++)
+    {
+      for (final HashFunction function : functions)
+      {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < hashCount; i++)
+        {
+          checksum += function.hash(keys[i & (keys.length - 1)]);
+        }
+        final long stringNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < hashCount; i++)
+        {
+          final int key = i & (keys.length - 1);
+          checksum -= function.hash(bytes, offsets[key], offsets[key + 1]);
+        }
+        final long byteNanos = System.nanoTime() - start;
+
+        System.out.println(String.format("  %-32s%6.1f ns/String %6.1f ns/byte range (checksum %d)", function + ":",
+            stringNanos / (double) hashCount, byteNanos / (double) hashCount, checksum));
+      }
+      System.out.println("");
+    }
+
+    System.out.println("Distribution of " + keyCount + " similar hashtags into " + BINS + " bins (chi-square / (bins - 1))");
+    for (final HashFunction function : functions)
+    {
+      final long[] bins = new long[(int) BINS];
+      for (int i = 0; i < keyCount; i++)
+      {
+        bins[(int) function.hash("ebola" + i)]++;
+      }
+
+      final double expected = keyCount / (double) BINS;
+      double chiSquare = 0;
+      for (final long observed : bins)
+      {
+        chiSquare += (observed - expected) * (observed - expected) / expected;
+      }
+
+      System.out.println(String.format("  %-32s%8.3f", function + ":", chiSquare / (BINS - 1)));
+    }
+    System.out.println("");
+
+    // Bloom Filters of 10 bits per trained hashtag, every 100th hashtag is trained and all others are probed
+    final int trainedCount = keyCount / 100;
+    final long n = 10L * trainedCount;
+    final double expectedRate = Math.pow(1 - Math.exp(-2.0 * trainedCount / n), 2);
+    System.out.println("False positive rate of " + trainedCount + " trained hashtags in " + n + " bins, 2 hash functions (expected "
+        + String.format("%.4f", expectedRate) + ")");
+
+    final HashCombo javaCombo = new HashCombo(n, new JavaStringHash(n));
+    javaCombo.addHashFunction(new StringLengthHash(n));
+    final HashCombo murmurCombo = new HashCombo(n, new Murmur3Hash(n, 0));
+    murmurCombo.addHashFunction(new Murmur3Hash(n, 1));
+    final HashCombo xxCombo = new HashCombo(n, new XxHash64(n, 0));
+    xxCombo.addHashFunction(new XxHash64(n, 1));
+
+    for (final HashCombo hashCombo : new HashCombo[] { javaCombo, murmurCombo, xxCombo })
+    {
+      final BloomFilter filter = new BloomFilter(n, hashCombo);
+      for (int i = 0; i < trainedCount; i++)
+      {
+        filter.train("ebola" + 100 * i);
+      }
+
+      long falsePositives = 0;
+      for (int i = 0; i < keyCount; i++)
+      {
+        if (i % 100 != 0 && filter.check("ebola" + i))
+        {
+          falsePositives++;
+        }
+      }
+
+      System.out.println(String.format("  %-64s%8.4f", filter.getPrettyHashFunctions() + ":",
+          falsePositives / (double) (keyCount - trainedCount)));
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+package de.l3s.lsdmproject.bloom;
+
+/**
+ * A fixed number of bits, packed into longs and indexed by long.<br />
+ * Java arrays are indexed by int, so the bits are split into pages of 2^30 bits (128 MB), each one a long[]. Thus, a bit array
+ * can hold more than 2^31 bits.
+ *
+ * @author Sebastian
+ *
+ */
+public class BitArray
+{
+
+  private static final int PAGE_BITS = 30;
+
+  private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+
+  private final long size;
+
+  private final long[][] pages;
+
+
+  public BitArray(final long size)
+  {
+    if (size < 1)
+    {
+      throw new IllegalArgumentException("Number of bits must be greater than or equal to 1.");
+    }
+
+    this.size = size;
+
+    final int pageCount = (int) ((size - 1) >>> PAGE_BITS) + 1;
+    pages = new long[pageCount][];
+    for (int p = 0; p < pageCount; p++)
+    {
+      final long pageSize = Math.min(size - ((long) p << PAGE_BITS), 1L << PAGE_BITS);
+      pages[p] = new long[(int) ((pageSize + 63) >>> 6)];
+    }
+  }
+
+
+  /**
+   * Sets the bit at the given index.
+   */
+  public void set(final long index)
+  {
+    // Shifting a long by the index uses its lowest 6 bits only
+    pages[(int) (index >>> PAGE_BITS)][(int) ((index & PAGE_MASK) >>> 6)] |= 1L << index;
+  }
+
+
+  /**
+   * Returns whether the bit at the given index is set.
+   */
+  public boolean get(final long index)
+  {
+    return (pages[(int) (index >>> PAGE_BITS)][(int) ((index & PAGE_MASK) >>> 6)] & (1L << index)) != 0;
+  }
+
+
+  /**
+   * Number of bits.
+   */
+  public long size()
+  {
+    return size;
+  }
+
+
+  /**
+   * Number of bits set.
+   */
+  public long cardinality()
+  {
+    long count = 0;
+    for (long[] page : pages)
+    {
+      for (long word : page)
+      {
+        count += Long.bitCount(word);
+      }
+    }
+
+    return count;
+  }
+
+
+  /**
+   * Number of bytes occupied by the bits.
+   */
+  public long getMemoryEstimate()
+  {
+    long bytes = 0;
+    for (long[] page : pages)
+    {
+      bytes += 8L * page.length;
+    }
+
+    return bytes;
+  }
+
+}
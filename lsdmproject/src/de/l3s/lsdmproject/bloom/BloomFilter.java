@@ -1,72 +1,249 @@
-package de.l3s.lsdmproject.bloom;
-
-import java.util.ArrayList;
-
-
-/**
- * The implementation of a Bloom Filter.
- * 
- * @author Sebastian
- *
- */
-public class BloomFilter
-{
-
-  private final HashCombo hashCombo;
-
-  private final boolean[] bins;
-
-
-  public BloomFilter(final int n, final HashCombo hashCombo)
-  {
-    if (hashCombo.getN() != n)
-    {
-      throw new IllegalArgumentException("The maximum hash size (" + hashCombo.getN()
-          + ") of the given hash combo doesn't match the specified maximum hash size (" + n
-          + ") in this Bloom filter.");
-
-    }
-
-    this.hashCombo = hashCombo;
-    this.bins = new boolean[n];
-  }
-
-
-  /**
-   * Trains this Bloom Filter to accept the given input.
-   */
-  public void train(final String input)
-  {
-    final ArrayList<Integer> hashes = hashCombo.hash(input);
-
-    for (final Integer hash : hashes)
-    {
-      bins[hash] = true;
-    }
-  }
-
-
-  /**
-   * Returns whether a given input may be matched by the Bloom Filter.
-   */
-  public boolean check(final String input)
-  {
-    final ArrayList<Integer> hashes = hashCombo.hash(input);
-
-    for (final Integer hash : hashes)
-    {
-      if (!bins[hash])
-      {
-        return false;
-      }
-    }
-
-    return true;
-  }
-
-
-  public String getPrettyHashFunctions()
-  {
-    return hashCombo.getPrettyHashFunctions();
-  }
-}
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * The implementation of a Bloom Filter. The bins are stored as a {@link BitArray}, i.e. one bit per bin.
+ * 
+ * @author Sebastian
+ *
+ */
+public class BloomFilter
+  implements MembershipFilter
+{
+
+  private final HashCombo hashCombo;
+
+  private final BitArray bins;
+
+  /**
+   * Number of bins set by training.
+   */
+  private long setBinCount = 0;
+
+
+  public BloomFilter(final long n, final HashCombo hashCombo)
+  {
+    if (hashCombo.getN() != n)
+    {
+      throw new IllegalArgumentException("The maximum hash size (" + hashCombo.getN()
+          + ") of the given hash combo doesn't match the specified maximum hash size (" + n
+          + ") in this Bloom filter.");
+
+    }
+
+    this.hashCombo = hashCombo;
+    this.bins = new BitArray(n);
+  }
+
+
+  /**
+   * Creates a Bloom filter with the optimal number of bins and hash functions for the expected number of elements and the target
+   * false positive rate. The positions are derived by {@link DoubleHashing}.
+   */
+  public static BloomFilter forFalsePositiveRate(final long expectedElements, final double falsePositiveRate)
+  {
+    final long binCount = optimalBinCount(expectedElements, falsePositiveRate);
+    return new BloomFilter(binCount, optimalHashCombo(expectedElements, binCount));
+  }
+
+
+  /**
+   * Returns the optimal number of bins m = -n ln(p) / (ln 2)^2 for n elements and a false positive rate p.
+   */
+  public static long optimalBinCount(final long expectedElements, final double falsePositiveRate)
+  {
+    if (expectedElements < 1)
+    {
+      throw new IllegalArgumentException("Expected number of elements must be greater than or equal to 1.");
+    }
+    else if (!(falsePositiveRate > 0) || !(falsePositiveRate < 1))
+    {
+      throw new IllegalArgumentException("False positive rate must be within (0, 1).");
+    }
+
+    return Math.max(1, (long) Math.ceil(-expectedElements * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+  }
+
+
+  /**
+   * Returns the optimal number of hash functions k = m/n ln 2 for n elements and m bins.
+   */
+  public static int optimalHashFunctionCount(final long expectedElements, final long binCount)
+  {
+    return Math.max(1, (int) Math.round((double) binCount / expectedElements * Math.log(2)));
+  }
+
+
+  /**
+   * Returns a {@link DoubleHashing} combo with the optimal number of hash functions for n elements and m bins.
+   */
+  static HashCombo optimalHashCombo(final long expectedElements, final long binCount)
+  {
+    return new DoubleHashing(binCount, optimalHashFunctionCount(expectedElements, binCount)).toHashCombo();
+  }
+
+
+  /**
+   * Trains this Bloom Filter to accept the given input.
+   */
+  @Override
+  public void train(final String input)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      final long position = hashCombo.hash(input, i);
+      if (!bins.get(position))
+      {
+        bins.set(position);
+        setBinCount++;
+      }
+    }
+  }
+
+
+  /**
+   * Trains the input given by its base hashes (see {@link DoubleHashing#baseHashes(String, long[])}). Only for Bloom filters sized
+   * by a false positive rate, whose positions are derived by double hashing.
+   */
+  void trainBaseHashes(final long[] baseHashes)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      final long position = DoubleHashing.position(baseHashes, i, bins.size());
+      if (!bins.get(position))
+      {
+        bins.set(position);
+        setBinCount++;
+      }
+    }
+  }
+
+
+  /**
+   * Returns whether a given input may be matched by the Bloom Filter. The positions are hashed one after another and checking
+   * stops at the first bin not set, so nothing is allocated.
+   */
+  @Override
+  public boolean check(final String input)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      if (!bins.get(hashCombo.hash(input, i)))
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Returns whether the input given by a range of UTF-8 bytes may be matched by the Bloom Filter, without decoding it (see
+   * {@link HashFunction#hash(ByteBuffer, int, int)}).
+   */
+  @Override
+  public boolean check(final ByteBuffer buffer, final int begin, final int end)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      if (!bins.get(hashCombo.hash(buffer, begin, end, i)))
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Returns whether the input given by its base hashes may be matched by the Bloom Filter, see {@link #trainBaseHashes(long[])}.
+   */
+  boolean checkBaseHashes(final long[] baseHashes)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      if (!bins.get(DoubleHashing.position(baseHashes, i, bins.size())))
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Returns whether the bins at the given positions are all set, e.g. for positions computed by
+   * {@link HashCombo#hash(String, long[])} in advance.
+   *
+   * @param count
+   *          Number of positions to check.
+   */
+  public boolean check(final long[] positions, final int count)
+  {
+    for (int i = 0; i < count; i++)
+    {
+      if (!bins.get(positions[i]))
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Number of bytes occupied by the bins.
+   */
+  @Override
+  public long getMemoryEstimate()
+  {
+    return bins.getMemoryEstimate();
+  }
+
+
+  /**
+   * Number of bins (m).
+   */
+  @Override
+  public long getBinCount()
+  {
+    return bins.size();
+  }
+
+
+  /**
+   * Fraction of bins set, about 1/2 for the expected number of elements with the optimal number of hash functions.
+   */
+  public double getFillRatio()
+  {
+    return setBinCount / (double) bins.size();
+  }
+
+
+  /**
+   * Estimated false positive rate for the current fill ratio, i.e. the probability of k random bins being set.
+   */
+  public double getEstimatedFalsePositiveRate()
+  {
+    return Math.pow(getFillRatio(), hashCombo.size());
+  }
+
+
+  public HashCombo getHashCombo()
+  {
+    return hashCombo;
+  }
+
+
+  @Override
+  public String getPrettyHashFunctions()
+  {
+    return hashCombo.getPrettyHashFunctions();
+  }
+}
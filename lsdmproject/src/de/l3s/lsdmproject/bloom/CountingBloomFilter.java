@@ -0,0 +1,211 @@
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A Bloom Filter, whose bins are counters instead of bits, so that trained inputs can be removed again. The counters have 4 bits
+ * each and are packed into longs, i.e. the filter takes 4 times the memory of a {@link BloomFilter} with the same number of bins.
+ * <br />
+ * A counter saturates at 15 and is never decremented from there on, as its actual count is unknown. Thus, an input trained into
+ * saturated counters is never removed completely. With the optimal number of hash functions, the probability of any counter
+ * exceeding 15 is about 1.37 * 10^-15 per bin (Fan et al.), unless the same input is trained many times.<br />
+ * Training, removing and checking may happen from several threads at once, e.g. while a running filter is updated. Each counter is
+ * updated atomically, so a check concurrent to training an input may miss it.
+ *
+ * @author Sebastian
+ *
+ */
+public class CountingBloomFilter
+  implements MembershipFilter
+{
+
+  private static final int COUNTER_BITS = 4;
+
+  private static final int COUNTERS_PER_LONG = 64 / COUNTER_BITS;
+
+  private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+
+  private final HashCombo hashCombo;
+
+  private final long n;
+
+  private final AtomicLongArray counters;
+
+  /**
+   * Number of increments that were lost to saturated counters.
+   */
+  private final AtomicLong saturatedIncrements = new AtomicLong(0);
+
+
+  public CountingBloomFilter(final long n, final HashCombo hashCombo)
+  {
+    if (hashCombo.getN() != n)
+    {
+      throw new IllegalArgumentException("The maximum hash size (" + hashCombo.getN()
+          + ") of the given hash combo doesn't match the specified maximum hash size (" + n
+          + ") in this Bloom filter.");
+    }
+    else if ((n + COUNTERS_PER_LONG - 1) / COUNTERS_PER_LONG > Integer.MAX_VALUE)
+    {
+      throw new IllegalArgumentException("Maximum hash size (n) must not be greater than "
+          + (long) Integer.MAX_VALUE * COUNTERS_PER_LONG + ".");
+    }
+
+    this.hashCombo = hashCombo;
+    this.n = n;
+    this.counters = new AtomicLongArray((int) ((n + COUNTERS_PER_LONG - 1) / COUNTERS_PER_LONG));
+  }
+
+
+  /**
+   * Creates a counting Bloom filter with the optimal number of bins and hash functions for the expected number of elements and the
+   * target false positive rate, like {@link BloomFilter#forFalsePositiveRate(long, double)}.
+   */
+  public static CountingBloomFilter forFalsePositiveRate(final long expectedElements, final double falsePositiveRate)
+  {
+    final long binCount = BloomFilter.optimalBinCount(expectedElements, falsePositiveRate);
+    return new CountingBloomFilter(binCount, BloomFilter.optimalHashCombo(expectedElements, binCount));
+  }
+
+
+  /**
+   * Trains this Bloom Filter to accept the given input, i.e. increments its counters.
+   */
+  @Override
+  public void train(final String input)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      add(hashCombo.hash(input, i), 1);
+    }
+  }
+
+
+  /**
+   * Removes a trained input, i.e. decrements its counters. Other inputs are not affected, as long as the input was trained before
+   * (as often as it is removed).
+   *
+   * @return False iff the input is definitely not trained, nothing is removed then.
+   */
+  public boolean untrain(final String input)
+  {
+    if (!check(input))
+    {
+      return false;
+    }
+
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      add(hashCombo.hash(input, i), -1);
+    }
+
+    return true;
+  }
+
+
+  @Override
+  public boolean check(final String input)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      if (getCount(hashCombo.hash(input, i)) == 0)
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  @Override
+  public boolean check(final ByteBuffer buffer, final int begin, final int end)
+  {
+    for (int i = 0; i < hashCombo.size(); i++)
+    {
+      if (getCount(hashCombo.hash(buffer, begin, end, i)) == 0)
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Returns the counter of the bin at the given position.
+   */
+  public int getCount(final long position)
+  {
+    return (int) ((counters.get((int) (position / COUNTERS_PER_LONG)) >>> shift(position)) & MAX_COUNT);
+  }
+
+
+  /**
+   * Adds 1 or -1 to the counter at the given position, unless it is saturated or (for -1) already 0.
+   */
+  private void add(final long position, final int delta)
+  {
+    final int index = (int) (position / COUNTERS_PER_LONG);
+    final int shift = shift(position);
+    while (true)
+    {
+      final long word = counters.get(index);
+      final long count = (word >>> shift) & MAX_COUNT;
+      if (count == MAX_COUNT || (count == 0 && delta < 0))
+      {
+        if (delta > 0)
+        {
+          saturatedIncrements.incrementAndGet();
+        }
+        return;
+      }
+
+      if (counters.compareAndSet(index, word, word + ((long) delta << shift)))
+      {
+        return;
+      }
+    }
+  }
+
+
+  private static int shift(final long position)
+  {
+    return (int) (position % COUNTERS_PER_LONG) * COUNTER_BITS;
+  }
+
+
+  /**
+   * Number of increments that were lost as the counter was saturated already. If it is not 0, removed inputs may remain.
+   */
+  public long getSaturatedIncrementCount()
+  {
+    return saturatedIncrements.get();
+  }
+
+
+  @Override
+  public long getBinCount()
+  {
+    return n;
+  }
+
+
+  @Override
+  public long getMemoryEstimate()
+  {
+    return 8L * counters.length();
+  }
+
+
+  @Override
+  public String getPrettyHashFunctions()
+  {
+    return hashCombo.getPrettyHashFunctions();
+  }
+
+}
@@ -0,0 +1,195 @@
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Derives k hash functions from two 64-bit base hashes h1 and h2 of the input, by double hashing (Kirsch and Mitzenmacher): the i-th
+ * position is h1 + i * h2 mod N. A Bloom filter using them has the same asymptotic false positive rate as one using k independent
+ * hash functions, but each input is hashed only once. The base hashes are the two halves of its {@link Murmur3Hash}.<br />
+ * All double hashings share the base hashes of the latest String of each thread, so they are computed only once for the k
+ * positions of a String. A byte range is hashed again for the first position of each combo, as the contents of a buffer may
+ * change. Filters checking an input against several double hashings compute the base hashes once and derive all positions from
+ * them instead (see {@link ScalableBloomFilter}).
+ *
+ * @author Sebastian
+ *
+ */
+public class DoubleHashing
+{
+
+  private final long n;
+
+  private final int k;
+
+  /**
+   * Base hashes of the latest input per thread, as a Bloom filter may be checked by several parsing threads. They don't depend on
+   * n and k.
+   */
+  private static final ThreadLocal<BaseHashes> BASE_HASHES = new ThreadLocal<BaseHashes>()
+  {
+
+    @Override
+    protected BaseHashes initialValue()
+    {
+      return new BaseHashes();
+    }
+
+  };
+
+
+  /**
+   * @param n
+   *          The number of different hash results at max.
+   * @param k
+   *          The number of hash functions.
+   */
+  public DoubleHashing(final long n, final int k)
+  {
+    if (n < 1)
+    {
+      throw new IllegalArgumentException("Maximum hash size (n) must be greater than or equal to 1.");
+    }
+    else if (k < 1)
+    {
+      throw new IllegalArgumentException("Number of hash functions (k) must be greater than or equal to 1.");
+    }
+
+    this.n = n;
+    this.k = k;
+  }
+
+
+  /**
+   * Returns a combo of all k hash functions.
+   */
+  public HashCombo toHashCombo()
+  {
+    final HashCombo hashCombo = new HashCombo(n, new DoubleHashFunction(this, 0));
+    for (int i = 1; i < k; i++)
+    {
+      hashCombo.addHashFunction(new DoubleHashFunction(this, i));
+    }
+
+    return hashCombo;
+  }
+
+
+  /**
+   * Computes the base hashes h1 and h2 of an input.
+   */
+  static void baseHashes(final String input, final long[] hashes)
+  {
+    Murmur3Hash.hash128(input, 0, hashes);
+  }
+
+
+  /**
+   * Computes the base hashes h1 and h2 of an input given by a range of UTF-8 bytes.
+   */
+  static void baseHashes(final ByteBuffer buffer, final int begin, final int end, final long[] hashes)
+  {
+    Murmur3Hash.hash128(buffer, begin, end, 0, hashes);
+  }
+
+
+  /**
+   * Returns the i-th of N positions for the given base hashes, i.e. the result of the i-th function of a double hashing.
+   */
+  static long position(final long[] hashes, final int i, final long n)
+  {
+    // An odd step never is 0, so the k positions differ unless N is small
+    return ((hashes[0] + i * (hashes[1] | 1)) & Long.MAX_VALUE) % n;
+  }
+
+
+  long position(final String hash, final int i)
+  {
+    final BaseHashes base = BASE_HASHES.get();
+
+    // Inputs are compared by identity, a combo passes the same input to all of its functions
+    if (hash != base.input)
+    {
+      baseHashes(hash, base.hashes);
+      base.input = hash;
+    }
+
+    return position(base.hashes, i, n);
+  }
+
+
+  long position(final ByteBuffer buffer, final int begin, final int end, final int i)
+  {
+    final BaseHashes base = BASE_HASHES.get();
+
+    // The contents of a buffer may change, so they are hashed again for the first function of a combo
+    if (i == 0 || buffer != base.input || begin != base.begin || end != base.end)
+    {
+      baseHashes(buffer, begin, end, base.hashes);
+      base.input = buffer;
+      base.begin = begin;
+      base.end = end;
+    }
+
+    return position(base.hashes, i, n);
+  }
+
+
+  private static class BaseHashes
+  {
+
+    /**
+     * The latest String, or the buffer of the latest byte range.
+     */
+    private Object input = null;
+    private int begin;
+    private int end;
+
+    private final long[] hashes = new long[2];
+
+  }
+
+
+  /**
+   * The i-th hash function of a double hashing.
+   */
+  public static class DoubleHashFunction
+    extends HashFunction
+  {
+
+    private final DoubleHashing hashing;
+
+    private final int i;
+
+
+    public DoubleHashFunction(final DoubleHashing hashing, final int i)
+    {
+      super(hashing.n);
+      this.hashing = hashing;
+      this.i = i;
+    }
+
+
+    @Override
+    public long hash(final String hash)
+    {
+      return hashing.position(hash, i);
+    }
+
+
+    @Override
+    public long hash(final ByteBuffer buffer, final int begin, final int end)
+    {
+      return hashing.position(buffer, begin, end, i);
+    }
+
+
+    @Override
+    public String toString()
+    {
+      return "(h1 + " + i + " * h2) mod N";
+    }
+
+  }
+
+}
@@ -1,76 +1,104 @@
-package de.l3s.lsdmproject.bloom;
-
-import java.util.ArrayList;
-
-
-/**
- * Stores one or more hash functions for Strings.
- * 
- * @author Sebastian
- */
-public class HashCombo
-{
-
-  private final ArrayList<HashFunction> hashFunctions = new ArrayList<>();
-
-  private final int n;
-
-
-  public HashCombo(final int n, final HashFunction hashFunction)
-  {
-    this.n = n;
-    addHashFunction(hashFunction);
-  }
-
-
-  public int getN()
-  {
-    return n;
-  }
-
-
-  /**
-   * Adds another hash function to this combo.
-   */
-  public void addHashFunction(final HashFunction hashFunction)
-  {
-    if (hashFunction.getN() != n)
-    {
-      throw new IllegalArgumentException("The maximum hash size (" + hashFunction.getN()
-          + ") of the given hash function doesn't match the specified maximum hash size (" + n
-          + ") in this Hash combo.");
-    }
-
-    hashFunctions.add(hashFunction);
-  }
-
-
-  /**
-   * Evaluates given input with all hash functions contained in the combo.
-   */
-  public ArrayList<Integer> hash(final String hash)
-  {
-    final ArrayList<Integer> hashes = new ArrayList<>(hashFunctions.size());
-
-    for (final HashFunction hashFunction : hashFunctions)
-    {
-      hashes.add(hashFunction.hash(hash));
-    }
-
-    return hashes;
-  }
-
-
-  public String getPrettyHashFunctions()
-  {
-    String out = hashFunctions.get(0).toString();
-
-    for (int i = 1; i < hashFunctions.size(); i++)
-    {
-      out += " AND " + hashFunctions.get(i).toString();
-    }
-
-    return out;
-  }
-
-}
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+
+/**
+ * Stores one or more hash functions for Strings.
+ * 
+ * @author Sebastian
+ */
+public class HashCombo
+{
+
+  private HashFunction[] hashFunctions = new HashFunction[0];
+
+  private final long n;
+
+
+  public HashCombo(final long n, final HashFunction hashFunction)
+  {
+    this.n = n;
+    addHashFunction(hashFunction);
+  }
+
+
+  public long getN()
+  {
+    return n;
+  }
+
+
+  /**
+   * Adds another hash function to this combo.
+   */
+  public void addHashFunction(final HashFunction hashFunction)
+  {
+    if (hashFunction.getN() != n)
+    {
+      throw new IllegalArgumentException("The maximum hash size (" + hashFunction.getN()
+          + ") of the given hash function doesn't match the specified maximum hash size (" + n
+          + ") in this Hash combo.");
+    }
+
+    hashFunctions = Arrays.copyOf(hashFunctions, hashFunctions.length + 1);
+    hashFunctions[hashFunctions.length - 1] = hashFunction;
+  }
+
+
+  /**
+   * Number of hash functions (k) contained in the combo.
+   */
+  public int size()
+  {
+    return hashFunctions.length;
+  }
+
+
+  /**
+   * Evaluates given input with the i-th hash function, e.g. to check positions one after another and stop at the first miss.
+   */
+  public long hash(final String hash, final int i)
+  {
+    return hashFunctions[i].hash(hash);
+  }
+
+
+  /**
+   * Evaluates the input given by a range of UTF-8 bytes with the i-th hash function.
+   */
+  public long hash(final ByteBuffer buffer, final int begin, final int end, final int i)
+  {
+    return hashFunctions[i].hash(buffer, begin, end);
+  }
+
+
+  /**
+   * Evaluates given input with all hash functions contained in the combo, without allocating.
+   *
+   * @param positions
+   *          Receives the results, it has to hold at least {@link #size()} positions.
+   */
+  public void hash(final String hash, final long[] positions)
+  {
+    for (int i = 0; i < hashFunctions.length; i++)
+    {
+      positions[i] = hashFunctions[i].hash(hash);
+    }
+  }
+
+
+  public String getPrettyHashFunctions()
+  {
+    String out = hashFunctions[0].toString();
+
+    for (int i = 1; i < hashFunctions.length; i++)
+    {
+      out += " AND " + hashFunctions[i].toString();
+    }
+
+    return out;
+  }
+
+}
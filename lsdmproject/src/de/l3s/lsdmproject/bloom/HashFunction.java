@@ -1,29 +1,45 @@
-package de.l3s.lsdmproject.bloom;
-
-public abstract class HashFunction
-{
-
-  /**
-   * The number of different hash results at max.
-   */
-  final int n;
-
-
-  public HashFunction(final int n)
-  {
-    this.n = n;
-  }
-
-
-  /**
-   * Returns the number of different hash results at max.
-   */
-  public int getN()
-  {
-    return n;
-  }
-
-
-  public abstract int hash(String hash);
-
-}
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+public abstract class HashFunction
+{
+
+  /**
+   * The number of different hash results at max.
+   */
+  final long n;
+
+
+  public HashFunction(final long n)
+  {
+    this.n = n;
+  }
+
+
+  /**
+   * Returns the number of different hash results at max.
+   */
+  public long getN()
+  {
+    return n;
+  }
+
+
+  /**
+   * Returns the position of the given input, between 0 and n-1.
+   */
+  public abstract long hash(String hash);
+
+
+  /**
+   * Returns the position of the input given by a range of UTF-8 bytes, the same as for the decoded String. Unless overridden, the
+   * range is decoded.
+   */
+  public long hash(final ByteBuffer buffer, final int begin, final int end)
+  {
+    return hash(HashInput.decode(buffer, begin, end));
+  }
+
+}
@@ -0,0 +1,143 @@
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Reads the UTF-8 bytes of an input to hash, in little-endian order. The input is either a range of a buffer (with the string being
+ * null) or a String of ASCII characters, whose chars are read directly as bytes. Thus, a String and its UTF-8 bytes hash alike.
+ *
+ * @author Sebastian
+ *
+ */
+final class HashInput
+{
+
+  private HashInput()
+  {
+  }
+
+
+  /**
+   * Whether all chars of the String are ASCII, i.e. they equal its UTF-8 bytes.
+   */
+  static boolean isAscii(final String string)
+  {
+    for (int i = 0; i < string.length(); i++)
+    {
+      if (string.charAt(i) >= 0x80)
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Whether all bytes of the range are ASCII.
+   */
+  static boolean isAscii(final ByteBuffer buffer, final int begin, final int end)
+  {
+    for (int i = begin; i < end; i++)
+    {
+      // Non-ASCII bytes are negative
+      if (buffer.get(i) < 0)
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Wraps the UTF-8 bytes of a String with non-ASCII characters.
+   */
+  static ByteBuffer encode(final String string)
+  {
+    return ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+  }
+
+
+  /**
+   * Decodes a range of UTF-8 bytes.
+   */
+  static String decode(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final byte[] bytes = new byte[end - begin];
+    for (int i = begin; i < end; i++)
+    {
+      bytes[i - begin] = buffer.get(i);
+    }
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+
+  /**
+   * Reads the unsigned byte at i.
+   */
+  static int getByte(final ByteBuffer buffer, final String string, final int i)
+  {
+    return string != null ? string.charAt(i) : buffer.get(i) & 0xFF;
+  }
+
+
+  /**
+   * Reads 4 bytes starting at i as an unsigned little-endian int.
+   */
+  static long getInt(final ByteBuffer buffer, final String string, final int i)
+  {
+    return string != null ? getInt(string, i) : getInt(buffer, i);
+  }
+
+
+  /**
+   * Reads 8 bytes starting at i as a little-endian long.
+   */
+  static long getLong(final ByteBuffer buffer, final String string, final int i)
+  {
+    return string != null ? getInt(string, i) | getInt(string, i + 4) << 32 : getLong(buffer, i);
+  }
+
+
+  /**
+   * Reads less than 8 bytes starting at i as a little-endian long, the missing high bytes are 0.
+   */
+  static long getPartialLong(final ByteBuffer buffer, final String string, final int i, final int count)
+  {
+    long value = 0;
+    for (int j = count - 1; j >= 0; j--)
+    {
+      value = value << 8 | getByte(buffer, string, i + j);
+    }
+
+    return value;
+  }
+
+
+  private static long getInt(final String string, final int i)
+  {
+    return string.charAt(i) | string.charAt(i + 1) << 8 | string.charAt(i + 2) << 16 | (long) string.charAt(i + 3) << 24;
+  }
+
+
+  private static long getInt(final ByteBuffer buffer, final int i)
+  {
+    final int value = buffer.getInt(i);
+    return (buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value)) & 0xFFFFFFFFL;
+  }
+
+
+  private static long getLong(final ByteBuffer buffer, final int i)
+  {
+    final long value = buffer.getLong(i);
+    return buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Long.reverseBytes(value);
+  }
+
+}
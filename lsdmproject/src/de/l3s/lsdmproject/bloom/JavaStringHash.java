@@ -1,27 +1,49 @@
-package de.l3s.lsdmproject.bloom;
-
-public class JavaStringHash
-  extends HashFunction
-{
-
-  public JavaStringHash(final int n)
-  {
-    super(n);
-  }
-
-
-  @Override
-  public int hash(final String hash)
-  {
-    // Guarantee positive value between 0 and n-1
-    return Math.abs(hash.hashCode() % n);
-  }
-
-
-  @Override
-  public String toString()
-  {
-    return "abs(String.hashCode() mod N)";
-  }
-
-}
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+public class JavaStringHash
+  extends HashFunction
+{
+
+  public JavaStringHash(final long n)
+  {
+    super(n);
+  }
+
+
+  @Override
+  public long hash(final String hash)
+  {
+    // Guarantee positive value between 0 and n-1
+    return Math.abs(hash.hashCode() % n);
+  }
+
+
+  @Override
+  public long hash(final ByteBuffer buffer, final int begin, final int end)
+  {
+    if (!HashInput.isAscii(buffer, begin, end))
+    {
+      return super.hash(buffer, begin, end);
+    }
+
+    // Same as String.hashCode(), ASCII bytes equal the chars
+    int hashCode = 0;
+    for (int i = begin; i < end; i++)
+    {
+      hashCode = 31 * hashCode + buffer.get(i);
+    }
+
+    return Math.abs(hashCode % n);
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "abs(String.hashCode() mod N)";
+  }
+
+}
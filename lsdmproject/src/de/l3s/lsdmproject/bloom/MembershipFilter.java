@@ -0,0 +1,48 @@
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A probabilistic set of Strings, that is trained with the elements to accept. Checking never rejects a trained element, but may
+ * accept others (false positives).
+ *
+ * @author Sebastian
+ *
+ */
+public interface MembershipFilter
+{
+
+  /**
+   * Trains this filter to accept the given input.
+   */
+  void train(String input);
+
+
+  /**
+   * Returns whether a given input may be matched by the filter.
+   */
+  boolean check(String input);
+
+
+  /**
+   * Returns whether the input given by a range of UTF-8 bytes may be matched by the filter, the same as for the decoded String.
+   */
+  boolean check(ByteBuffer buffer, int begin, int end);
+
+
+  /**
+   * Number of bins (m).
+   */
+  long getBinCount();
+
+
+  /**
+   * Number of bytes occupied by the bins.
+   */
+  long getMemoryEstimate();
+
+
+  String getPrettyHashFunctions();
+
+}
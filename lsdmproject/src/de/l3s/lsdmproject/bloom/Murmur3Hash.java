@@ -0,0 +1,225 @@
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * The 128-bit variant of MurmurHash3 for 64-bit platforms (MurmurHash3_x64_128 by Austin Appleby), applied to the UTF-8 bytes of
+ * the input. Positions are taken from the first 64 bits of the hash.<br />
+ * Strings of ASCII characters are hashed from their chars directly, byte ranges (e.g. of a memory-mapped source file) are hashed
+ * without decoding them. Both yield the same hash for the same hashtag.
+ *
+ * @author Sebastian
+ *
+ */
+public class Murmur3Hash
+  extends HashFunction
+{
+
+  private static final long C1 = 0x87C37B91114253D5L;
+  private static final long C2 = 0x4CF5AD432745937FL;
+
+  private final long seed;
+
+
+  public Murmur3Hash(final long n)
+  {
+    this(n, 0);
+  }
+
+
+  /**
+   * @param seed
+   *          Hash functions with different seeds are independent of each other.
+   */
+  public Murmur3Hash(final long n, final long seed)
+  {
+    super(n);
+    this.seed = seed;
+  }
+
+
+  @Override
+  public long hash(final String hash)
+  {
+    return (hash64(hash, seed) & Long.MAX_VALUE) % n;
+  }
+
+
+  @Override
+  public long hash(final ByteBuffer buffer, final int begin, final int end)
+  {
+    return (hash64(buffer, begin, end, seed) & Long.MAX_VALUE) % n;
+  }
+
+
+  /**
+   * Returns the first 64 bits of the hash.
+   */
+  public static long hash64(final String input, final long seed)
+  {
+    if (HashInput.isAscii(input))
+    {
+      return hash128(null, input, 0, input.length(), seed, null);
+    }
+    else
+    {
+      final ByteBuffer bytes = HashInput.encode(input);
+      return hash128(bytes, null, 0, bytes.limit(), seed, null);
+    }
+  }
+
+
+  /**
+   * Returns the first 64 bits of the hash.
+   */
+  public static long hash64(final ByteBuffer buffer, final int begin, final int end, final long seed)
+  {
+    return hash128(buffer, null, begin, end, seed, null);
+  }
+
+
+  /**
+   * Computes the 128-bit hash of a String.
+   *
+   * @param result
+   *          Receives both halves of the hash.
+   */
+  public static void hash128(final String input, final long seed, final long[] result)
+  {
+    if (HashInput.isAscii(input))
+    {
+      hash128(null, input, 0, input.length(), seed, result);
+    }
+    else
+    {
+      final ByteBuffer bytes = HashInput.encode(input);
+      hash128(bytes, null, 0, bytes.limit(), seed, result);
+    }
+  }
+
+
+  /**
+   * Computes the 128-bit hash of a range of UTF-8 bytes.
+   *
+   * @param result
+   *          Receives both halves of the hash.
+   */
+  public static void hash128(final ByteBuffer buffer, final int begin, final int end, final long seed, final long[] result)
+  {
+    hash128(buffer, null, begin, end, seed, result);
+  }
+
+
+  /**
+   * Returns the first 64 bits of the hash.
+   *
+   * @param result
+   *          Receives both halves of the hash, if not null.
+   */
+  private static long hash128(final ByteBuffer buffer, final String string, final int begin, final int end, final long seed,
+      final long[] result)
+  {
+    final int length = end - begin;
+    long h1 = seed;
+    long h2 = seed;
+
+    // Body of 16 byte blocks
+    int i = begin;
+    for (; i + 16 <= end; i += 16)
+    {
+      long k1 = HashInput.getLong(buffer, string, i);
+      long k2 = HashInput.getLong(buffer, string, i + 8);
+
+      k1 *= C1;
+      k1 = Long.rotateLeft(k1, 31);
+      k1 *= C2;
+      h1 ^= k1;
+
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = h1 * 5 + 0x52DCE729;
+
+      k2 *= C2;
+      k2 = Long.rotateLeft(k2, 33);
+      k2 *= C1;
+      h2 ^= k2;
+
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495AB5;
+    }
+
+    // Tail of less than 16 bytes, bytes 8 to 15 go into k2
+    long k1;
+    long k2 = 0;
+    if (end - i >= 8)
+    {
+      k1 = HashInput.getLong(buffer, string, i);
+      k2 = HashInput.getPartialLong(buffer, string, i + 8, end - i - 8);
+    }
+    else
+    {
+      k1 = HashInput.getPartialLong(buffer, string, i, end - i);
+    }
+
+    if (end - i > 8)
+    {
+      k2 *= C2;
+      k2 = Long.rotateLeft(k2, 33);
+      k2 *= C1;
+      h2 ^= k2;
+    }
+    if (end - i > 0)
+    {
+      k1 *= C1;
+      k1 = Long.rotateLeft(k1, 31);
+      k1 *= C2;
+      h1 ^= k1;
+    }
+
+    // Finalization
+    h1 ^= length;
+    h2 ^= length;
+
+    h1 += h2;
+    h2 += h1;
+
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+
+    h1 += h2;
+    h2 += h1;
+
+    if (result != null)
+    {
+      result[0] = h1;
+      result[1] = h2;
+    }
+
+    return h1;
+  }
+
+
+  /**
+   * Finalizer of MurmurHash3, all bits of the result depend on all bits of the input.
+   */
+  static long fmix64(long k)
+  {
+    k ^= k >>> 33;
+    k *= 0xFF51AFD7ED558CCDL;
+    k ^= k >>> 33;
+    k *= 0xC4CEB9FE1A85EC53L;
+    k ^= k >>> 33;
+
+    return k;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "murmur3_128(seed " + seed + ") mod N";
+  }
+
+}
@@ -0,0 +1,243 @@
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+
+/**
+ * A Bloom Filter, that grows with the number of trained inputs (Almeida et al.). It consists of a series of {@link BloomFilter}s,
+ * inputs are trained into the latest one. Once its fill ratio reaches 1/2, i.e. its expected number of elements, a new one is added
+ * with a capacity larger by the growth factor and a false positive rate smaller by the tightening ratio. Thus, the false positive
+ * rate of the i-th filter is p0 * r^i and the compound false positive rate stays below p0 / (1 - r), the target rate.<br />
+ * An input is accepted, if any filter accepts it. Training an input that is accepted already is skipped, so that repeated inputs
+ * don't fill the filters. All filters derive their positions from the same base hashes by {@link DoubleHashing}, so each input is
+ * hashed only once, regardless of the number of filters.
+ *
+ * @author Sebastian
+ *
+ */
+public class ScalableBloomFilter
+  implements MembershipFilter
+{
+
+  public static final int DEFAULT_GROWTH = 2;
+
+  public static final double DEFAULT_TIGHTENING = 0.5;
+
+  /**
+   * Fill ratio of a filter at its expected number of elements.
+   */
+  private static final double FILL_THRESHOLD = 0.5;
+
+  /**
+   * Base hashes of the input being trained or checked, per thread.
+   */
+  private static final ThreadLocal<long[]> BASE_HASHES = new ThreadLocal<long[]>()
+  {
+
+    @Override
+    protected long[] initialValue()
+    {
+      return new long[2];
+    }
+
+  };
+
+  private final int growth;
+
+  private final double tightening;
+
+  /**
+   * The filters in the order they were added, replaced on growth, so that checks need no lock.
+   */
+  private volatile BloomFilter[] filters;
+
+  private long capacity;
+
+  private double falsePositiveRate;
+
+
+  /**
+   * Instantiates a scalable Bloom filter, that doubles its capacity and halves the false positive rate of each added filter.
+   *
+   * @param initialCapacity
+   *          Expected number of elements of the first filter.
+   * @param falsePositiveRate
+   *          The compound false positive rate to stay below.
+   */
+  public ScalableBloomFilter(final long initialCapacity, final double falsePositiveRate)
+  {
+    this(initialCapacity, falsePositiveRate, DEFAULT_GROWTH, DEFAULT_TIGHTENING);
+  }
+
+
+  /**
+   * @param initialCapacity
+   *          Expected number of elements of the first filter.
+   * @param falsePositiveRate
+   *          The compound false positive rate to stay below.
+   * @param growth
+   *          Factor of the capacity of each added filter (s), at least 1.
+   * @param tightening
+   *          Factor of the false positive rate of each added filter (r), within (0, 1).
+   */
+  public ScalableBloomFilter(final long initialCapacity, final double falsePositiveRate, final int growth,
+      final double tightening)
+  {
+    if (growth < 1)
+    {
+      throw new IllegalArgumentException("Growth factor must be greater than or equal to 1.");
+    }
+    else if (!(tightening > 0) || !(tightening < 1))
+    {
+      throw new IllegalArgumentException("Tightening ratio must be within (0, 1).");
+    }
+
+    this.growth = growth;
+    this.tightening = tightening;
+
+    // The rates of all filters sum up to the target rate at max
+    this.capacity = initialCapacity;
+    this.falsePositiveRate = falsePositiveRate * (1 - tightening);
+    this.filters = new BloomFilter[] { BloomFilter.forFalsePositiveRate(capacity, this.falsePositiveRate) };
+  }
+
+
+  /**
+   * Trains the latest filter to accept the given input and adds a new one, if it's full. Training is not thread-safe, but may
+   * happen while other threads check.
+   */
+  @Override
+  public void train(final String input)
+  {
+    final long[] baseHashes = BASE_HASHES.get();
+    DoubleHashing.baseHashes(input, baseHashes);
+    if (check(baseHashes))
+    {
+      return;
+    }
+
+    final BloomFilter current = filters[filters.length - 1];
+    current.trainBaseHashes(baseHashes);
+
+    if (current.getFillRatio() >= FILL_THRESHOLD)
+    {
+      capacity *= growth;
+      falsePositiveRate *= tightening;
+
+      final BloomFilter[] grown = Arrays.copyOf(filters, filters.length + 1);
+      grown[filters.length] = BloomFilter.forFalsePositiveRate(capacity, falsePositiveRate);
+      filters = grown;
+    }
+  }
+
+
+  @Override
+  public boolean check(final String input)
+  {
+    final long[] baseHashes = BASE_HASHES.get();
+    DoubleHashing.baseHashes(input, baseHashes);
+
+    return check(baseHashes);
+  }
+
+
+  @Override
+  public boolean check(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final long[] baseHashes = BASE_HASHES.get();
+    DoubleHashing.baseHashes(buffer, begin, end, baseHashes);
+
+    return check(baseHashes);
+  }
+
+
+  private boolean check(final long[] baseHashes)
+  {
+    for (final BloomFilter filter : filters)
+    {
+      if (filter.checkBaseHashes(baseHashes))
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+
+  /**
+   * Number of filters, at least 1.
+   */
+  public int getFilterCount()
+  {
+    return filters.length;
+  }
+
+
+  /**
+   * Fill ratio of the latest filter, a new one is added when it reaches 1/2.
+   */
+  public double getFillRatio()
+  {
+    return filters[filters.length - 1].getFillRatio();
+  }
+
+
+  /**
+   * Estimated compound false positive rate for the current fill ratios, i.e. the probability of any filter accepting an input
+   * that was not trained.
+   */
+  public double getEstimatedFalsePositiveRate()
+  {
+    double rejected = 1;
+    for (final BloomFilter filter : filters)
+    {
+      rejected *= 1 - filter.getEstimatedFalsePositiveRate();
+    }
+
+    return 1 - rejected;
+  }
+
+
+  @Override
+  public long getBinCount()
+  {
+    long bins = 0;
+    for (final BloomFilter filter : filters)
+    {
+      bins += filter.getBinCount();
+    }
+
+    return bins;
+  }
+
+
+  @Override
+  public long getMemoryEstimate()
+  {
+    long bytes = 0;
+    for (final BloomFilter filter : filters)
+    {
+      bytes += filter.getMemoryEstimate();
+    }
+
+    return bytes;
+  }
+
+
+  @Override
+  public String getPrettyHashFunctions()
+  {
+    final BloomFilter[] current = filters;
+    String out = "";
+    for (int i = 0; i < current.length; i++)
+    {
+      out += (i == 0 ? "" : " OR ") + "[" + current[i].getHashCombo().size() + " of (h1 + i * h2) mod "
+          + current[i].getBinCount() + "]";
+    }
+
+    return out;
+  }
+
+}
@@ -1,27 +1,42 @@
-package de.l3s.lsdmproject.bloom;
-
-public class StringLengthHash
-  extends HashFunction
-{
-
-  public StringLengthHash(final int n)
-  {
-    super(n);
-  }
-
-
-  @Override
-  public int hash(final String hash)
-  {
-    // Guarantee positive value between 0 and n-1
-    return hash.length() % n;
-  }
-
-
-  @Override
-  public String toString()
-  {
-    return "String.length() mod N";
-  }
-
-}
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+public class StringLengthHash
+  extends HashFunction
+{
+
+  public StringLengthHash(final long n)
+  {
+    super(n);
+  }
+
+
+  @Override
+  public long hash(final String hash)
+  {
+    // Guarantee positive value between 0 and n-1
+    return hash.length() % n;
+  }
+
+
+  @Override
+  public long hash(final ByteBuffer buffer, final int begin, final int end)
+  {
+    if (!HashInput.isAscii(buffer, begin, end))
+    {
+      return super.hash(buffer, begin, end);
+    }
+
+    return (end - begin) % n;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "String.length() mod N";
+  }
+
+}
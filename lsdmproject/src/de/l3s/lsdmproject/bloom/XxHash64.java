@@ -0,0 +1,169 @@
+package de.l3s.lsdmproject.bloom;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * The 64-bit variant of xxHash (XXH64 by Yann Collet), applied to the UTF-8 bytes of the input.<br />
+ * Strings of ASCII characters are hashed from their chars directly, byte ranges (e.g. of a memory-mapped source file) are hashed
+ * without decoding them. Both yield the same hash for the same hashtag.
+ *
+ * @author Sebastian
+ *
+ */
+public class XxHash64
+  extends HashFunction
+{
+
+  private static final long P1 = 0x9E3779B185EBCA87L;
+  private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long P3 = 0x165667B19E3779F9L;
+  private static final long P4 = 0x85EBCA77C2B2AE63L;
+  private static final long P5 = 0x27D4EB2F165667C5L;
+
+  private final long seed;
+
+
+  public XxHash64(final long n)
+  {
+    this(n, 0);
+  }
+
+
+  /**
+   * @param seed
+   *          Hash functions with different seeds are independent of each other.
+   */
+  public XxHash64(final long n, final long seed)
+  {
+    super(n);
+    this.seed = seed;
+  }
+
+
+  @Override
+  public long hash(final String hash)
+  {
+    return (hash64(hash, seed) & Long.MAX_VALUE) % n;
+  }
+
+
+  @Override
+  public long hash(final ByteBuffer buffer, final int begin, final int end)
+  {
+    return (hash64(buffer, begin, end, seed) & Long.MAX_VALUE) % n;
+  }
+
+
+  public static long hash64(final String input, final long seed)
+  {
+    if (HashInput.isAscii(input))
+    {
+      return hash64(null, input, 0, input.length(), seed);
+    }
+    else
+    {
+      final ByteBuffer bytes = HashInput.encode(input);
+      return hash64(bytes, null, 0, bytes.limit(), seed);
+    }
+  }
+
+
+  /**
+   * Hashes a range of UTF-8 bytes.
+   */
+  public static long hash64(final ByteBuffer buffer, final int begin, final int end, final long seed)
+  {
+    return hash64(buffer, null, begin, end, seed);
+  }
+
+
+  private static long hash64(final ByteBuffer buffer, final String string, final int begin, final int end, final long seed)
+  {
+    int i = begin;
+    long h;
+
+    // Stripes of 32 bytes into four accumulators
+    if (end - begin >= 32)
+    {
+      long v1 = seed + P1 + P2;
+      long v2 = seed + P2;
+      long v3 = seed;
+      long v4 = seed - P1;
+
+      for (; i + 32 <= end; i += 32)
+      {
+        v1 = round(v1, HashInput.getLong(buffer, string, i));
+        v2 = round(v2, HashInput.getLong(buffer, string, i + 8));
+        v3 = round(v3, HashInput.getLong(buffer, string, i + 16));
+        v4 = round(v4, HashInput.getLong(buffer, string, i + 24));
+      }
+
+      h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      h = merge(h, v1);
+      h = merge(h, v2);
+      h = merge(h, v3);
+      h = merge(h, v4);
+    }
+    else
+    {
+      h = seed + P5;
+    }
+
+    h += end - begin;
+
+    // Remaining 8 byte and 4 byte lanes, then single bytes
+    for (; i + 8 <= end; i += 8)
+    {
+      h ^= round(0, HashInput.getLong(buffer, string, i));
+      h = Long.rotateLeft(h, 27) * P1 + P4;
+    }
+    if (i + 4 <= end)
+    {
+      h ^= HashInput.getInt(buffer, string, i) * P1;
+      h = Long.rotateLeft(h, 23) * P2 + P3;
+      i += 4;
+    }
+    for (; i < end; i++)
+    {
+      h ^= HashInput.getByte(buffer, string, i) * P5;
+      h = Long.rotateLeft(h, 11) * P1;
+    }
+
+    // Avalanche
+    h ^= h >>> 33;
+    h *= P2;
+    h ^= h >>> 29;
+    h *= P3;
+    h ^= h >>> 32;
+
+    return h;
+  }
+
+
+  private static long round(long accumulator, final long input)
+  {
+    accumulator += input * P2;
+    accumulator = Long.rotateLeft(accumulator, 31);
+    accumulator *= P1;
+
+    return accumulator;
+  }
+
+
+  private static long merge(long accumulator, final long value)
+  {
+    accumulator ^= round(0, value);
+    accumulator = accumulator * P1 + P4;
+
+    return accumulator;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "xxhash64(seed " + seed + ") mod N";
+  }
+
+}
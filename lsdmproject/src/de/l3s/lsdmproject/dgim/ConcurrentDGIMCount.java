@@ -0,0 +1,359 @@
+package de.l3s.lsdmproject.dgim;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Represents a DGIM counter that accepts inserts from several threads concurrently.<br />
+ * Each thread inserts into one of several stripes, i.e. independent {@link DGIMArrayCount}s guarded by their own lock. Inserting
+ * stays free of allocations, it only increments the version of the stripe before and after changing its buckets (a sequence
+ * lock). Counts read the buckets of each stripe without locking and retry a read, if the version of its stripe changed meanwhile,
+ * so reading doesn't block writers. The counts of all stripes at the time of the shared clock are summed up. As the count of each
+ * stripe has a relative error of less than 1/(r-1), so has their sum.<br />
+ * A count considers every 1 whose insert completed before the count started. A 1 is assigned to the timestamp it is inserted
+ * with, unless its stripe has already seen a later one, as the buckets of a stripe have to be in order. Thus, a 1 is shifted
+ * forward by at most the time that the threads inserting into its stripe are apart in the stream, e.g. the time spanned by the
+ * parts of a file that are parsed at once, and the result depends on the order in which the inserts happen to interleave.
+ *
+ * @author Sebastian
+ *
+ */
+public class ConcurrentDGIMCount
+  implements SlidingWindowCounter
+{
+
+  private final String name;
+
+  private final StreamClock clock;
+
+  private final int maxBucketsPerSize;
+
+  private final Stripe[] stripes;
+
+  private final AtomicInteger nextStripe = new AtomicInteger(0);
+
+  /**
+   * Threads are assigned to stripes round robin.
+   */
+  private final ThreadLocal<Stripe> threadStripes = new ThreadLocal<Stripe>()
+  {
+
+    @Override
+    protected Stripe initialValue()
+    {
+      return stripes[(nextStripe.getAndIncrement() & Integer.MAX_VALUE) % stripes.length];
+    }
+
+  };
+
+
+  /**
+   * Instantiates a concurrent DGIM counter with a stripe per available processor.
+   *
+   * @param n
+   *          Maximum length of stored stream data.
+   */
+  public ConcurrentDGIMCount(final long n, final String name)
+  {
+    this(n, name, new ConcurrentStreamClock(), Runtime.getRuntime().availableProcessors(),
+        DGIMCount.DEFAULT_BUCKETS_PER_SIZE);
+  }
+
+
+  /**
+   * Instantiates a concurrent DGIM counter.
+   *
+   * @param n
+   *          Maximum length of stored stream data.
+   * @param clock
+   *          The clock, possibly shared with other counters. It has to be thread-safe (see {@link ConcurrentStreamClock}), if the
+   *          counter is used by several threads.
+   * @param stripeCount
+   *          Number of independent stripes, i.e. the number of threads that can insert without contention.
+   * @param r
+   *          Maximum number of buckets per size, at least 2.
+   */
+  public ConcurrentDGIMCount(final long n, final String name, final StreamClock clock, final int stripeCount, final int r)
+  {
+    if (stripeCount < 1)
+    {
+      throw new IllegalArgumentException("Number of stripes must be greater than or equal to 1.");
+    }
+
+    this.name = name;
+    this.clock = clock;
+    this.maxBucketsPerSize = r;
+
+    // Each stripe has its own clock, so that its buckets get the timestamps of their 1's rather than the latest time of all threads
+    stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++)
+    {
+      stripes[i] = new Stripe(new DGIMArrayCount(n, name, new StreamClock(), r));
+    }
+  }
+
+
+  @Override
+  public void insert(final long timestamp, final boolean value)
+  {
+    // Can't handle tweets without timestamp
+    if (timestamp == -1)
+    {
+      return;
+    }
+
+    clock.advance(timestamp);
+
+    // Count only ones (boolean true)
+    if (value)
+    {
+      threadStripes.get().insert(timestamp);
+    }
+  }
+
+
+  /**
+   * Returns a consistent summary of all stripes, without blocking concurrent inserts.
+   */
+  @Override
+  public DGIMSummary toSummary()
+  {
+    final DGIMSummary[] parts = new DGIMSummary[stripes.length];
+    for (int i = 0; i < stripes.length; i++)
+    {
+      parts[i] = stripes[i].copyBuckets();
+    }
+
+    // Read the clock last, so that all buckets are within the window
+    return DGIMSummary.union(name, clock.getTime(), parts);
+  }
+
+
+  @Override
+  public long count(final long k)
+  {
+    return count(new long[] { k })[0].getEstimate();
+  }
+
+
+  /**
+   * Counts within each stripe without copying its buckets, from the newest bucket up to the end of each window. As in
+   * {@link #toSummary()}, the count of all stripes is the sum of their counts.
+   */
+  @Override
+  public WindowEstimate[] count(final long[] ks)
+  {
+    // 1's inserted after reading the clock are within all windows
+    final long timer = clock.getTime();
+
+    final long[] estimates = new long[ks.length];
+    final long[] lowerBounds = new long[ks.length];
+    final long[] upperBounds = new long[ks.length];
+    for (Stripe stripe : stripes)
+    {
+      final WindowEstimate[] stripeEstimates = stripe.countAt(timer, ks);
+      for (int i = 0; i < ks.length; i++)
+      {
+        estimates[i] += stripeEstimates[i].getEstimate();
+        lowerBounds[i] += stripeEstimates[i].getLowerBound();
+        upperBounds[i] += stripeEstimates[i].getUpperBound();
+      }
+    }
+
+    final WindowEstimate[] result = new WindowEstimate[ks.length];
+    for (int i = 0; i < ks.length; i++)
+    {
+      result[i] = new WindowEstimate(ks[i], estimates[i], lowerBounds[i], upperBounds[i]);
+    }
+
+    return result;
+  }
+
+
+  /**
+   * Restores the buckets into the first stripe, the counter should not have been used before.
+   */
+  @Override
+  public void restore(final DGIMSummary summary)
+  {
+    stripes[0].restore(summary);
+    clock.advance(summary.getTimer());
+  }
+
+
+  @Override
+  public int getMaxBucketsPerSize()
+  {
+    return maxBucketsPerSize;
+  }
+
+
+  @Override
+  public double getErrorBound()
+  {
+    return DGIMCount.errorBoundForBucketsPerSize(maxBucketsPerSize);
+  }
+
+
+  @Override
+  public long getMemoryEstimate()
+  {
+    long bytes = 0;
+    for (Stripe stripe : stripes)
+    {
+      synchronized (stripe)
+      {
+        bytes += stripe.counter.getMemoryEstimate();
+      }
+    }
+
+    return bytes;
+  }
+
+
+  @Override
+  public long getExpiredBucketCount()
+  {
+    long expiredBuckets = 0;
+    for (Stripe stripe : stripes)
+    {
+      synchronized (stripe)
+      {
+        expiredBuckets += stripe.counter.getExpiredBucketCount();
+      }
+    }
+
+    return expiredBuckets;
+  }
+
+
+  @Override
+  public String getName()
+  {
+    return name;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return toSummary().toString();
+  }
+
+
+  private static class Stripe
+  {
+
+    /**
+     * Reads without locking, before a reader waits for the current insert instead.
+     */
+    private static final int OPTIMISTIC_READS = 8;
+
+    private final DGIMArrayCount counter;
+
+    /**
+     * Incremented before and after each change of the buckets, so it is odd while they change.
+     */
+    private final AtomicLong version = new AtomicLong(0);
+
+
+    public Stripe(final DGIMArrayCount counter)
+    {
+      this.counter = counter;
+    }
+
+
+    public synchronized void insert(final long timestamp)
+    {
+      version.incrementAndGet();
+      counter.insert(timestamp, true);
+      version.incrementAndGet();
+    }
+
+
+    public synchronized void restore(final DGIMSummary restoredSummary)
+    {
+      version.incrementAndGet();
+      counter.restore(restoredSummary);
+      version.incrementAndGet();
+    }
+
+
+    public DGIMSummary copyBuckets()
+    {
+      return read(new StripeRead<DGIMSummary>()
+      {
+
+        @Override
+        public DGIMSummary read(final DGIMArrayCount counter)
+        {
+          return counter.copyBuckets();
+        }
+
+      });
+    }
+
+
+    public WindowEstimate[] countAt(final long timer, final long[] ks)
+    {
+      return read(new StripeRead<WindowEstimate[]>()
+      {
+
+        @Override
+        public WindowEstimate[] read(final DGIMArrayCount counter)
+        {
+          return counter.countAt(timer, ks);
+        }
+
+      });
+    }
+
+
+    /**
+     * Reads the buckets, while other threads may insert. Only if the stripe keeps changing during several reads, the reader waits
+     * for the current insert.
+     */
+    private <T> T read(final StripeRead<T> stripeRead)
+    {
+      for (int i = 0; i < OPTIMISTIC_READS; i++)
+      {
+        final long before = version.get();
+        if ((before & 1) == 0)
+        {
+          try
+          {
+            final T result = stripeRead.read(counter);
+            // Unlike a plain read of the version, compare and set can't be reordered with the reads of the buckets
+            if (version.compareAndSet(before, before))
+            {
+              return result;
+            }
+          }
+          catch (IndexOutOfBoundsException e)
+          {
+            // An insert changed the buckets while reading, so the version has changed as well
+          }
+        }
+      }
+
+      synchronized (this)
+      {
+        return stripeRead.read(counter);
+      }
+    }
+
+  }
+
+
+  /**
+   * A read of the buckets of a stripe, that is repeated if an insert changed them meanwhile.
+   */
+  private interface StripeRead<T>
+  {
+
+    T read(DGIMArrayCount counter);
+
+  }
+
+}
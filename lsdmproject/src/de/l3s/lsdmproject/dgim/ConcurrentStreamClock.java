@@ -0,0 +1,36 @@
+package de.l3s.lsdmproject.dgim;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A {@link StreamClock} that can be advanced by several threads concurrently.
+ *
+ * @author Sebastian
+ *
+ */
+public class ConcurrentStreamClock
+  extends StreamClock
+{
+
+  private final AtomicLong time = new AtomicLong(0);
+
+
+  @Override
+  public long getTime()
+  {
+    return time.get();
+  }
+
+
+  @Override
+  public void advance(final long timestamp)
+  {
+    long current = time.get();
+    while (timestamp > current && !time.compareAndSet(current, timestamp))
+    {
+      current = time.get();
+    }
+  }
+
+}
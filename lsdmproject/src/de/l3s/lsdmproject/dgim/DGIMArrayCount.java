@@ -0,0 +1,448 @@
+package de.l3s.lsdmproject.dgim;
+
+import java.util.Arrays;
+
+import de.l3s.lsdmproject.utils.Helper;
+
+
+/**
+ * Represents a DGIM counter that stores its buckets in primitive arrays instead of a chain of {@link DGIMBucket} objects.<br />
+ * There is one ring buffer per bucket size (power of two), holding the begin and end times of at most r+1 buckets. The two oldest
+ * buckets are merged in place as soon as the (r+1)-th one of the same size arrives, so inserting does not allocate any objects.
+ *
+ * @author Sebastian
+ *
+ */
+public class DGIMArrayCount
+  implements SlidingWindowCounter
+{
+
+  private String name;
+
+  private final StreamClock clock;
+
+  private final long maximumStorageLength;
+
+  /**
+   * At most r buckets per size are kept, the (r+1)-th one triggers a merge.
+   */
+  private final int maxBucketsPerSize;
+
+  /**
+   * Slots of a ring buffer, one more than the maximum to hold the bucket triggering a merge.
+   */
+  private final int slotsPerSize;
+
+  /**
+   * Begin and end times of all buckets. The ring buffer of size 2^j occupies the slots from j * {@link #slotsPerSize}.
+   */
+  private long[] beginTimes;
+  private long[] endTimes;
+
+  /**
+   * Ring buffer position of the oldest bucket of each size.
+   */
+  private int[] oldest = new int[8];
+
+  /**
+   * Number of buckets of each size.
+   */
+  private int[] counts = new int[8];
+
+  /**
+   * Number of sizes in use, the largest buckets have size 2^(sizes-1).
+   */
+  private int sizes = 0;
+
+  private long expiredBuckets = 0;
+
+
+  /**
+   * Instantiates a DGIM counter. The maximum length of stored stream data is limited by the long data-type.
+   *
+   * @param n
+   *          Maximum length of stored stream data.
+   */
+  public DGIMArrayCount(final long n, final String name)
+  {
+    this(n, name, new StreamClock());
+  }
+
+
+  /**
+   * Instantiates a DGIM counter, that shares the given clock with other counters. Inserting 0's is not necessary then, it is
+   * enough to advance the clock.
+   *
+   * @param n
+   *          Maximum length of stored stream data.
+   */
+  public DGIMArrayCount(final long n, final String name, final StreamClock clock)
+  {
+    this(n, name, clock, DGIMCount.DEFAULT_BUCKETS_PER_SIZE);
+  }
+
+
+  /**
+   * Instantiates a DGIM counter with a custom accuracy, see {@link DGIMCount#DGIMCount(long, String, StreamClock, int)}.
+   *
+   * @param n
+   *          Maximum length of stored stream data.
+   * @param r
+   *          Maximum number of buckets per size, at least 2.
+   */
+  public DGIMArrayCount(final long n, final String name, final StreamClock clock, final int r)
+  {
+    if (n < 1)
+    {
+      throw new IllegalArgumentException("Maximum size (n) must be greater than or equal to 1.");
+    }
+
+    DGIMCount.checkBucketsPerSize(r);
+
+    this.name = name;
+    this.clock = clock;
+    this.maxBucketsPerSize = r;
+    this.slotsPerSize = r + 1;
+    this.beginTimes = new long[counts.length * slotsPerSize];
+    this.endTimes = new long[counts.length * slotsPerSize];
+
+    maximumStorageLength = n;
+  }
+
+
+  @Override
+  public void insert(final long timestamp, final boolean value)
+  {
+    // Can't handle tweets without timestamp
+    if (timestamp == -1)
+    {
+      return;
+    }
+
+    clock.advance(timestamp);
+
+    // Count only ones (boolean true), expired buckets are discarded lazily
+    if (value)
+    {
+      final long timer = clock.getTime();
+      // Create bucket of size 1 and merge the two oldest buckets of a size as long as there are too many
+      long begin = timer;
+      long end = timer;
+      int power = 0;
+      while (true)
+      {
+        push(power, begin, end);
+        if (counts[power] <= maxBucketsPerSize)
+        {
+          break;
+        }
+
+        final int older = pop(power);
+        final int newer = pop(power);
+        begin = Math.min(beginTimes[older], beginTimes[newer]);
+        end = Math.max(endTimes[older], endTimes[newer]);
+        power++;
+      }
+
+      discardOldBuckets();
+    }
+  }
+
+
+  /**
+   * Removes all buckets that are completely outside of the maximum storage length. Only the oldest buckets are checked, so this
+   * takes constant amortized time.
+   */
+  private void discardOldBuckets()
+  {
+    final long timer = clock.getTime();
+    while (sizes > 0)
+    {
+      final int power = sizes - 1;
+      final int slot = power * slotsPerSize + oldest[power];
+      if (endTimes[slot] >= (timer - maximumStorageLength))
+      {
+        break;
+      }
+
+      pop(power);
+      expiredBuckets++;
+      while (sizes > 0 && counts[sizes - 1] == 0)
+      {
+        sizes--;
+      }
+    }
+  }
+
+
+  @Override
+  public WindowEstimate[] count(final long[] ks)
+  {
+    discardOldBuckets();
+
+    return countAt(clock.getTime(), ks);
+  }
+
+
+  /**
+   * Counts within several windows ending at the given time, without modifying the counter. Like {@link #copyBuckets()}, it is
+   * used by {@link ConcurrentDGIMCount} while another thread may insert, and may fail with an {@link IndexOutOfBoundsException}
+   * then.
+   */
+  WindowEstimate[] countAt(final long timer, final long[] ks)
+  {
+    final int countedSizes = sizes;
+    final int[] countedOldest = oldest;
+    final int[] countedCounts = counts;
+    final long[] countedBeginTimes = beginTimes;
+    final long[] countedEndTimes = endTimes;
+
+    final WindowQuery query = new WindowQuery(timer, maximumStorageLength, ks);
+    // From the newest to the oldest bucket
+    for (int power = 0; power < countedSizes; power++)
+    {
+      for (int i = countedCounts[power] - 1; i >= 0; i--)
+      {
+        final int slot = power * slotsPerSize + (countedOldest[power] + i) % slotsPerSize;
+        if (!query.add(countedBeginTimes[slot], countedEndTimes[slot], Helper.powerOfTwo(power)))
+        {
+          return query.finish();
+        }
+      }
+    }
+
+    return query.finish();
+  }
+
+
+  /**
+   * Copies the current buckets, from the newest to the oldest one.
+   */
+  @Override
+  public DGIMSummary toSummary()
+  {
+    discardOldBuckets();
+
+    return copyBuckets();
+  }
+
+
+  /**
+   * Copies the current buckets, including expired ones that have not been discarded yet, without modifying the counter.<br />
+   * Used by {@link ConcurrentDGIMCount} to copy the buckets while another thread may insert. The copy is only consistent, if no
+   * insert happened in the meantime. Otherwise, it may fail with an {@link IndexOutOfBoundsException}, e.g. if the ring buffers
+   * grew.
+   */
+  DGIMSummary copyBuckets()
+  {
+    final int copiedSizes = sizes;
+    final int[] copiedOldest = oldest;
+    final int[] copiedCounts = counts;
+    final long[] copiedBeginTimes = beginTimes;
+    final long[] copiedEndTimes = endTimes;
+
+    int bucketCount = 0;
+    for (int power = 0; power < copiedSizes; power++)
+    {
+      bucketCount += copiedCounts[power];
+    }
+
+    final long[] summaryBeginTimes = new long[bucketCount];
+    final long[] summaryEndTimes = new long[bucketCount];
+    final int[] summaryPowers = new int[bucketCount];
+    int b = 0;
+    for (int power = 0; power < copiedSizes; power++)
+    {
+      for (int i = copiedCounts[power] - 1; i >= 0; i--)
+      {
+        final int slot = power * slotsPerSize + (copiedOldest[power] + i) % slotsPerSize;
+        summaryBeginTimes[b] = copiedBeginTimes[slot];
+        summaryEndTimes[b] = copiedEndTimes[slot];
+        summaryPowers[b] = power;
+        b++;
+      }
+    }
+
+    return new DGIMSummary(name, clock.getTime(), maximumStorageLength, maxBucketsPerSize, summaryBeginTimes, summaryEndTimes,
+        summaryPowers);
+  }
+
+
+  @Override
+  public void restore(final DGIMSummary summary)
+  {
+    summary.checkRestorable(maximumStorageLength, maxBucketsPerSize);
+
+    Arrays.fill(oldest, 0);
+    Arrays.fill(counts, 0);
+    sizes = 0;
+
+    // From the oldest to the newest bucket
+    for (int b = summary.getBucketCount() - 1; b >= 0; b--)
+    {
+      final int power = summary.powers[b];
+      if (power < counts.length && counts[power] >= maxBucketsPerSize)
+      {
+        throw new IllegalArgumentException("Summary of " + summary.getName() + " has more than r buckets of size 2^" + power + ".");
+      }
+      push(power, summary.beginTimes[b], summary.endTimes[b]);
+    }
+
+    clock.advance(summary.getTimer());
+  }
+
+
+  @Override
+  public int getMaxBucketsPerSize()
+  {
+    return maxBucketsPerSize;
+  }
+
+
+  @Override
+  public double getErrorBound()
+  {
+    return DGIMCount.errorBoundForBucketsPerSize(maxBucketsPerSize);
+  }
+
+
+  @Override
+  public long getMemoryEstimate()
+  {
+    return 8L * (beginTimes.length + endTimes.length) + 4L * (oldest.length + counts.length);
+  }
+
+
+  @Override
+  public long getExpiredBucketCount()
+  {
+    return expiredBuckets;
+  }
+
+
+  @Override
+  public long count(final long k)
+  {
+    if (k < 1)
+    {
+      return 0;
+    }
+    else if (k > maximumStorageLength)
+    {
+      throw new IllegalArgumentException(
+          "Value of k must be less than or equal to maximum stream length n (" + maximumStorageLength + ").");
+    }
+
+    discardOldBuckets();
+
+    final long timer = clock.getTime();
+    long count = 0;
+    // From the newest to the oldest bucket
+    for (int power = 0; power < sizes; power++)
+    {
+      for (int i = counts[power] - 1; i >= 0; i--)
+      {
+        final int slot = power * slotsPerSize + (oldest[power] + i) % slotsPerSize;
+        final long bucketCount = Helper.powerOfTwo(power);
+
+        // Bucket is completely within the window of k.
+        if ((timer - beginTimes[slot]) <= k)
+        {
+          count += bucketCount;
+        }
+        // Bucket partially overlaps the window of k.
+        else if ((timer - endTimes[slot]) <= k)
+        {
+          // Add just the affected proportion of the count, assuming uniform distribution
+          final double factor = ((double) (k - timer + endTimes[slot])) / ((double) (endTimes[slot] - beginTimes[slot]));
+          count += Math.round(factor * bucketCount);
+
+          // All following buckets don't overlap with k anymore
+          return count;
+        }
+        // Bucket is completely before the window of k, and so are all following buckets.
+        else
+        {
+          return count;
+        }
+      }
+    }
+
+    return count;
+  }
+
+
+  /**
+   * Adds a bucket as the newest one of the given size.
+   */
+  private void push(final int power, final long begin, final long end)
+  {
+    if (power >= sizes)
+    {
+      if (power >= counts.length)
+      {
+        grow();
+      }
+      sizes = power + 1;
+    }
+
+    final int slot = power * slotsPerSize + (oldest[power] + counts[power]) % slotsPerSize;
+    beginTimes[slot] = begin;
+    endTimes[slot] = end;
+    counts[power]++;
+  }
+
+
+  /**
+   * Removes the oldest bucket of the given size and returns its slot.
+   */
+  private int pop(final int power)
+  {
+    final int slot = power * slotsPerSize + oldest[power];
+    oldest[power] = (oldest[power] + 1) % slotsPerSize;
+    counts[power]--;
+
+    return slot;
+  }
+
+
+  /**
+   * Doubles the number of sizes that can be stored.
+   */
+  private void grow()
+  {
+    final int capacity = 2 * counts.length;
+    beginTimes = Arrays.copyOf(beginTimes, capacity * slotsPerSize);
+    endTimes = Arrays.copyOf(endTimes, capacity * slotsPerSize);
+    oldest = Arrays.copyOf(oldest, capacity);
+    counts = Arrays.copyOf(counts, capacity);
+  }
+
+
+  @Override
+  public String getName()
+  {
+    return name;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    final StringBuffer buf = new StringBuffer("CountingOnes(" + name + "): Timestamp[" + clock.getTime() + "]\r\n");
+
+    for (int power = 0; power < sizes; power++)
+    {
+      for (int i = counts[power] - 1; i >= 0; i--)
+      {
+        final int slot = power * slotsPerSize + (oldest[power] + i) % slotsPerSize;
+        buf.append("Bucket[2^" + power + "] count=" + Helper.powerOfTwo(power) + ", span="
+            + (endTimes[slot] - beginTimes[slot]));
+        buf.append("\r\n");
+      }
+    }
+
+    return buf.toString();
+  }
+
+}
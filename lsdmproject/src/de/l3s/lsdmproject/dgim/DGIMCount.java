@@ -1,216 +1,424 @@
-package de.l3s.lsdmproject.dgim;
-
-import java.util.Iterator;
-import java.util.NoSuchElementException;
-
-
-/**
- * Represents a DGIM counter. It can be used to approximate the count of items seen in a stream.<br />
- * 
- * @author Sebastian
- *
- */
-public class DGIMCount
-  implements Iterable<DGIMBucket>
-{
-
-  private String name;
-
-  private long timer = 0;
-
-  private final long maximumStorageLength;
-
-  private DGIMBucket firstBucket = null;
-
-
-  /**
-   * Instantiates a DGIM counter. The maximum length of stored stream data is limited by the long data-type.
-   * 
-   * @param n
-   *          Maximum length of stored stream data.
-   */
-  public DGIMCount(final long n, final String name)
-  {
-    if (n < 1)
-    {
-      throw new IllegalArgumentException("Maximum size (n) must be greater than or equal to 1.");
-    }
-    else if (n > Long.MAX_VALUE)
-    {
-      throw new IllegalArgumentException("Maximum size (n) is limited to maximum positive value of long (2^63-1).");
-    }
-
-    this.name = name;
-
-    maximumStorageLength = n;
-  }
-
-
-  /**
-   * Inserts a new value in front of the stream. True for 1, false for 0.
-   */
-  public void insert(final long timestamp, final boolean value)
-  {
-    // Can't handle tweets without timestamp
-    if (timestamp == -1)
-    {
-      return;
-    }
-
-    if (timestamp > timer)
-    {
-      this.timer = timestamp;
-    }
-
-    // Count only ones (boolean true)
-    if (value)
-    {
-      // Create bucket of size 1
-      final DGIMBucket newBucket = new DGIMBucket(timer);
-      // Update and consolidate chain of buckets
-      newBucket.prependTo(firstBucket);
-      // Update entry-point
-      firstBucket = newBucket;
-    }
-
-    discardOldBucket();
-  }
-
-
-  /**
-   * Checks if there is a bucket that exceeds the maximum storage length and removes the bucket, if one.
-   */
-  public void discardOldBucket()
-  {
-    for (DGIMBucket bucket : this)
-    {
-      // If there is a next bucket and it is (partially) outside of the maximum count n
-      if (bucket.getNextBucket() != null && bucket.getNextBucket().endTime < (timer - maximumStorageLength))
-      {
-        System.out.println("Detached a bucket: " + bucket);
-        bucket.detachNextBucket();
-        break;
-      }
-    }
-
-  }
-
-
-  /**
-   * Count 1's within the latest k elements.<br />
-   * The result is approximated using DGIM method.
-   * 
-   * @param k
-   *          Number of elements to consider.
-   * @return The count or 0 for negative k.
-   */
-  public long count(final long k)
-  {
-    if (k < 1)
-    {
-      return 0;
-    }
-    else if (k > maximumStorageLength)
-    {
-      throw new IllegalArgumentException(
-          "Value of k must be less than or equal to maximum stream length n (" + maximumStorageLength + ").");
-    }
-
-    long count = 0;
-    for (DGIMBucket b : this)
-    {
-      // Bucket is completely within the window of k.
-      if ((timer - b.beginTime) <= k)
-      {
-        count += b.getBucketCount();
-      }
-      // Bucket partially overlaps the window of k.
-      else if ((timer - b.endTime) <= k)
-      {
-        // Add just the affected proportion of the count, assuming uniform distribution
-        final double factor = ((double) (k - timer + b.endTime)) / ((double) b.getBucketSpan());
-        count += Math.round(factor * b.getBucketCount());
-
-        // All following buckets don't overlap with k anymore
-        break;
-      }
-    }
-
-    return count;
-  }
-
-
-  @Override
-  public Iterator<DGIMBucket> iterator()
-  {
-    return new BucketIterator(firstBucket);
-  }
-
-
-  private static class BucketIterator
-    implements Iterator<DGIMBucket>
-  {
-
-    private DGIMBucket cursor;
-
-
-    public BucketIterator(final DGIMBucket firstBucket)
-    {
-      this.cursor = firstBucket;
-    }
-
-
-    @Override
-    public boolean hasNext()
-    {
-      return cursor != null;
-    }
-
-
-    @Override
-    public DGIMBucket next()
-    {
-      if (hasNext())
-      {
-        final DGIMBucket current = cursor;
-        cursor = current.getNextBucket();
-
-        return current;
-      }
-      else
-      {
-        throw new NoSuchElementException();
-      }
-    }
-
-
-    @Override
-    public void remove()
-    {
-      throw new UnsupportedOperationException();
-    }
-
-  }
-
-
-  public String getName()
-  {
-    return name;
-  }
-
-
-  @Override
-  public String toString()
-  {
-    final StringBuffer buf = new StringBuffer("CountingOnes(" + name + "): Timestamp[" + timer + "]\r\n");
-
-    for (DGIMBucket b : this)
-    {
-      buf.append(b.toString());
-      buf.append("\r\n");
-    }
-
-    return buf.toString();
-  }
-
-}
+package de.l3s.lsdmproject.dgim;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Represents a DGIM counter. It can be used to approximate the count of items seen in a stream.<br />
+ * 
+ * @author Sebastian
+ *
+ */
+public class DGIMCount
+  implements Iterable<DGIMBucket>, SlidingWindowCounter
+{
+
+  /**
+   * Maximum number of buckets per size (r) of the original DGIM algorithm.
+   */
+  public static final int DEFAULT_BUCKETS_PER_SIZE = 2;
+
+  /**
+   * Approximate heap size of a {@link DGIMBucket} object in bytes.
+   */
+  private static final int BUCKET_BYTES = 40;
+
+  private String name;
+
+  private final StreamClock clock;
+
+  private final long maximumStorageLength;
+
+  private final int maxBucketsPerSize;
+
+  private DGIMBucket firstBucket = null;
+
+  private DGIMBucket lastBucket = null;
+
+  private long expiredBuckets = 0;
+
+
+  /**
+   * Instantiates a DGIM counter. The maximum length of stored stream data is limited by the long data-type.
+   * 
+   * @param n
+   *          Maximum length of stored stream data.
+   */
+  public DGIMCount(final long n, final String name)
+  {
+    this(n, name, new StreamClock());
+  }
+
+
+  /**
+   * Instantiates a DGIM counter, that shares the given clock with other counters. Inserting 0's is not necessary then, it is
+   * enough to advance the clock.
+   *
+   * @param n
+   *          Maximum length of stored stream data.
+   */
+  public DGIMCount(final long n, final String name, final StreamClock clock)
+  {
+    this(n, name, clock, DEFAULT_BUCKETS_PER_SIZE);
+  }
+
+
+  /**
+   * Instantiates a DGIM counter with a custom accuracy. Keeping more buckets per size lowers the error bound (see
+   * {@link #errorBoundForBucketsPerSize(int)}), but requires more memory.
+   *
+   * @param n
+   *          Maximum length of stored stream data.
+   * @param r
+   *          Maximum number of buckets per size, at least 2.
+   */
+  public DGIMCount(final long n, final String name, final StreamClock clock, final int r)
+  {
+    if (n < 1)
+    {
+      throw new IllegalArgumentException("Maximum size (n) must be greater than or equal to 1.");
+    }
+    else if (n > Long.MAX_VALUE)
+    {
+      throw new IllegalArgumentException("Maximum size (n) is limited to maximum positive value of long (2^63-1).");
+    }
+
+    checkBucketsPerSize(r);
+
+    this.name = name;
+    this.clock = clock;
+    this.maxBucketsPerSize = r;
+
+    maximumStorageLength = n;
+  }
+
+
+  /**
+   * Returns the number of buckets per size (r) required for the given relative error, i.e. ceil(1 / epsilon) + 1.
+   */
+  public static int bucketsPerSizeForError(final double epsilon)
+  {
+    if (!(epsilon > 0) || epsilon > 1)
+    {
+      throw new IllegalArgumentException("Relative error (epsilon) must be within (0, 1].");
+    }
+
+    return (int) Math.ceil(1 / epsilon) + 1;
+  }
+
+
+  /**
+   * Returns the bound of the relative error of counts, if r buckets per size are kept.<br />
+   * All sizes smaller than the size 2^j of the oldest bucket within the window hold at least r-1 buckets, so at least
+   * (r-1)(2^j-1)+1 ones are within the window. Only the oldest bucket is estimated and its estimate is off by at most 2^j-1. Thus
+   * the relative error is less than 1/(r-1).
+   */
+  public static double errorBoundForBucketsPerSize(final int r)
+  {
+    checkBucketsPerSize(r);
+
+    return 1.0 / (r - 1);
+  }
+
+
+  static void checkBucketsPerSize(final int r)
+  {
+    if (r < 2)
+    {
+      throw new IllegalArgumentException("Number of buckets per size (r) must be greater than or equal to 2.");
+    }
+  }
+
+
+  /**
+   * Inserts a new value in front of the stream. True for 1, false for 0.
+   */
+  @Override
+  public void insert(final long timestamp, final boolean value)
+  {
+    // Can't handle tweets without timestamp
+    if (timestamp == -1)
+    {
+      return;
+    }
+
+    clock.advance(timestamp);
+
+    // Count only ones (boolean true), expired buckets are discarded lazily
+    if (value)
+    {
+      // Create bucket of size 1
+      final DGIMBucket newBucket = new DGIMBucket(clock.getTime());
+      // Update and consolidate chain of buckets
+      final DGIMBucket newLastBucket = newBucket.prependTo(firstBucket, maxBucketsPerSize);
+      if (newLastBucket != null)
+      {
+        lastBucket = newLastBucket;
+      }
+      // Update entry-point
+      firstBucket = newBucket;
+
+      discardOldBuckets();
+    }
+  }
+
+
+  /**
+   * Removes all buckets that are completely outside of the maximum storage length. Buckets expire from the end of the chain, so
+   * only the last bucket has to be checked and this takes constant amortized time.
+   */
+  public void discardOldBuckets()
+  {
+    final long timer = clock.getTime();
+    while (lastBucket != null && lastBucket.endTime < (timer - maximumStorageLength))
+    {
+      lastBucket = lastBucket.getPreviousBucket();
+      if (lastBucket == null)
+      {
+        firstBucket = null;
+      }
+      else
+      {
+        lastBucket.detachNextBucket();
+      }
+      expiredBuckets++;
+    }
+  }
+
+
+  @Override
+  public WindowEstimate[] count(final long[] ks)
+  {
+    discardOldBuckets();
+
+    final WindowQuery query = new WindowQuery(clock.getTime(), maximumStorageLength, ks);
+    DGIMBucket b = firstBucket;
+    while (b != null && query.add(b.beginTime, b.endTime, b.getBucketCount()))
+    {
+      b = b.getNextBucket();
+    }
+
+    return query.finish();
+  }
+
+
+  /**
+   * Copies the current buckets, from the newest to the oldest one.
+   */
+  @Override
+  public DGIMSummary toSummary()
+  {
+    discardOldBuckets();
+
+    int bucketCount = 0;
+    for (DGIMBucket b = firstBucket; b != null; b = b.getNextBucket())
+    {
+      bucketCount++;
+    }
+
+    final long[] beginTimes = new long[bucketCount];
+    final long[] endTimes = new long[bucketCount];
+    final int[] powers = new int[bucketCount];
+    int i = 0;
+    for (DGIMBucket b = firstBucket; b != null; b = b.getNextBucket())
+    {
+      beginTimes[i] = b.beginTime;
+      endTimes[i] = b.endTime;
+      powers[i] = b.bucketSizePower;
+      i++;
+    }
+
+    return new DGIMSummary(name, clock.getTime(), maximumStorageLength, maxBucketsPerSize, beginTimes, endTimes, powers);
+  }
+
+
+  @Override
+  public void restore(final DGIMSummary summary)
+  {
+    summary.checkRestorable(maximumStorageLength, maxBucketsPerSize);
+
+    firstBucket = null;
+    lastBucket = null;
+
+    // From the newest to the oldest bucket
+    for (int b = 0; b < summary.getBucketCount(); b++)
+    {
+      final DGIMBucket bucket = new DGIMBucket(summary.beginTimes[b], summary.endTimes[b], summary.powers[b]);
+      if (lastBucket == null)
+      {
+        firstBucket = bucket;
+      }
+      else
+      {
+        lastBucket.link(bucket);
+      }
+      lastBucket = bucket;
+    }
+
+    clock.advance(summary.getTimer());
+  }
+
+
+  @Override
+  public int getMaxBucketsPerSize()
+  {
+    return maxBucketsPerSize;
+  }
+
+
+  @Override
+  public double getErrorBound()
+  {
+    return errorBoundForBucketsPerSize(maxBucketsPerSize);
+  }
+
+
+  @Override
+  public long getMemoryEstimate()
+  {
+    long buckets = 0;
+    for (DGIMBucket b = firstBucket; b != null; b = b.getNextBucket())
+    {
+      buckets++;
+    }
+
+    return buckets * BUCKET_BYTES;
+  }
+
+
+  @Override
+  public long getExpiredBucketCount()
+  {
+    return expiredBuckets;
+  }
+
+
+  /**
+   * Count 1's within the latest k elements.<br />
+   * The result is approximated using DGIM method.
+   * 
+   * @param k
+   *          Number of elements to consider.
+   * @return The count or 0 for negative k.
+   */
+  @Override
+  public long count(final long k)
+  {
+    if (k < 1)
+    {
+      return 0;
+    }
+    else if (k > maximumStorageLength)
+    {
+      throw new IllegalArgumentException(
+          "Value of k must be less than or equal to maximum stream length n (" + maximumStorageLength + ").");
+    }
+
+    discardOldBuckets();
+
+    final long timer = clock.getTime();
+    long count = 0;
+    for (DGIMBucket b : this)
+    {
+      // Bucket is completely within the window of k.
+      if ((timer - b.beginTime) <= k)
+      {
+        count += b.getBucketCount();
+      }
+      // Bucket partially overlaps the window of k.
+      else if ((timer - b.endTime) <= k)
+      {
+        // Add just the affected proportion of the count, assuming uniform distribution
+        final double factor = ((double) (k - timer + b.endTime)) / ((double) b.getBucketSpan());
+        count += Math.round(factor * b.getBucketCount());
+
+        // All following buckets don't overlap with k anymore
+        break;
+      }
+      // Bucket is completely before the window of k, and so are all following buckets.
+      else
+      {
+        break;
+      }
+    }
+
+    return count;
+  }
+
+
+  @Override
+  public Iterator<DGIMBucket> iterator()
+  {
+    return new BucketIterator(firstBucket);
+  }
+
+
+  private static class BucketIterator
+    implements Iterator<DGIMBucket>
+  {
+
+    private DGIMBucket cursor;
+
+
+    public BucketIterator(final DGIMBucket firstBucket)
+    {
+      this.cursor = firstBucket;
+    }
+
+
+    @Override
+    public boolean hasNext()
+    {
+      return cursor != null;
+    }
+
+
+    @Override
+    public DGIMBucket next()
+    {
+      if (hasNext())
+      {
+        final DGIMBucket current = cursor;
+        cursor = current.getNextBucket();
+
+        return current;
+      }
+      else
+      {
+        throw new NoSuchElementException();
+      }
+    }
+
+
+    @Override
+    public void remove()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+
+  @Override
+  public String getName()
+  {
+    return name;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    final StringBuffer buf = new StringBuffer("CountingOnes(" + name + "): Timestamp[" + clock.getTime() + "]\r\n");
+
+    for (DGIMBucket b : this)
+    {
+      buf.append(b.toString());
+      buf.append("\r\n");
+    }
+
+    return buf.toString();
+  }
+
+}
@@ -0,0 +1,409 @@
+package de.l3s.lsdmproject.dgim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import de.l3s.lsdmproject.utils.Helper;
+
+
+/**
+ * An immutable copy of the buckets of one or more DGIM counters at a certain time.<br />
+ * Unlike the buckets of a single counter, the buckets of a summary may overlap (e.g. if it combines the buckets of several
+ * counters), so counting always considers all of them. Every bucket overlapping a window, but not completely within it, adds
+ * between 1 and its size minus 1 to the actual count. For combined counters, the relative error is still less than 1/(r-1), as
+ * this holds for the count of each part.<br />
+ * Summaries can be written to a compact binary format and merged, e.g. to combine the counters of several partitions of a stream:
+ * <ul>
+ * <li>Magic number and version</li>
+ * <li>Name (modified UTF-8), timer, maximum size (n) and maximum buckets per size (r)</li>
+ * <li>Number of buckets and for each bucket its power, the difference of the timer and its end time and its span. The differences
+ * are variable-length encoded, the former one is zig-zag encoded first.</li>
+ * </ul>
+ *
+ * @author Sebastian
+ *
+ */
+public class DGIMSummary
+{
+
+  private static final int MAGIC = 0x44474D53;
+
+  private static final int VERSION = 1;
+
+  private final String name;
+
+  private final long timer;
+
+  private final long maximumStorageLength;
+
+  private final int maxBucketsPerSize;
+
+  /**
+   * Begin and end times and size (as power of two) of each bucket.
+   */
+  final long[] beginTimes;
+  final long[] endTimes;
+  final int[] powers;
+
+
+  DGIMSummary(final String name, final long timer, final long n, final int r, final long[] beginTimes, final long[] endTimes,
+      final int[] powers)
+  {
+    this.name = name;
+    this.timer = timer;
+    this.maximumStorageLength = n;
+    this.maxBucketsPerSize = r;
+    this.beginTimes = beginTimes;
+    this.endTimes = endTimes;
+    this.powers = powers;
+  }
+
+
+  /**
+   * Combines the buckets of several summaries of the same stream into one summary at the given time. The buckets are just
+   * collected, so the result is as accurate as its parts.
+   */
+  public static DGIMSummary union(final String name, final long timer, final DGIMSummary... parts)
+  {
+    if (parts.length == 0)
+    {
+      throw new IllegalArgumentException("At least one summary is required.");
+    }
+
+    int bucketCount = 0;
+    for (DGIMSummary part : parts)
+    {
+      checkCompatible(parts[0], part);
+      bucketCount += part.getBucketCount();
+    }
+
+    final long[] beginTimes = new long[bucketCount];
+    final long[] endTimes = new long[bucketCount];
+    final int[] powers = new int[bucketCount];
+    int offset = 0;
+    for (DGIMSummary part : parts)
+    {
+      System.arraycopy(part.beginTimes, 0, beginTimes, offset, part.getBucketCount());
+      System.arraycopy(part.endTimes, 0, endTimes, offset, part.getBucketCount());
+      System.arraycopy(part.powers, 0, powers, offset, part.getBucketCount());
+      offset += part.getBucketCount();
+    }
+
+    return new DGIMSummary(name, timer, parts[0].maximumStorageLength, parts[0].maxBucketsPerSize, beginTimes, endTimes, powers);
+  }
+
+
+  /**
+   * Merges the summaries of several partitions of a stream into one summary at the latest time of all parts.<br />
+   * Like in {@link #union(String, long, DGIMSummary...)}, the buckets are only collected, as buckets of different partitions
+   * overlap and combining them would break the order of the buckets of each partition. Thus, the count within a window is the sum
+   * of the counts of all partitions within that window. The count of each partition has a relative error of less than 1/(r-1), as
+   * its buckets are still valid at the later time (the partition had no 1's in the meantime), so has the sum. Buckets that have
+   * expired at the latest time are dropped, but the merged summary has up to as many buckets as all parts together.
+   */
+  public static DGIMSummary merge(final String name, final DGIMSummary... parts)
+  {
+    if (parts.length == 0)
+    {
+      throw new IllegalArgumentException("At least one summary is required.");
+    }
+
+    long timer = parts[0].timer;
+    for (DGIMSummary part : parts)
+    {
+      timer = Math.max(timer, part.timer);
+    }
+
+    final DGIMSummary union = union(name, timer, parts);
+    final long expiryTime = timer - union.maximumStorageLength;
+
+    int bucketCount = 0;
+    for (int b = 0; b < union.powers.length; b++)
+    {
+      if (union.endTimes[b] >= expiryTime)
+      {
+        bucketCount++;
+      }
+    }
+
+    final long[] beginTimes = new long[bucketCount];
+    final long[] endTimes = new long[bucketCount];
+    final int[] powers = new int[bucketCount];
+    int i = 0;
+    for (int b = 0; b < union.powers.length; b++)
+    {
+      if (union.endTimes[b] >= expiryTime)
+      {
+        beginTimes[i] = union.beginTimes[b];
+        endTimes[i] = union.endTimes[b];
+        powers[i] = union.powers[b];
+        i++;
+      }
+    }
+
+    return new DGIMSummary(name, timer, union.maximumStorageLength, union.maxBucketsPerSize, beginTimes, endTimes, powers);
+  }
+
+
+  /**
+   * Checks that the summary can be restored into a counter with the given parameters.
+   */
+  void checkRestorable(final long n, final int r)
+  {
+    if (maximumStorageLength != n || maxBucketsPerSize != r)
+    {
+      throw new IllegalArgumentException("Summary of " + name + " (n=" + maximumStorageLength + ", r=" + maxBucketsPerSize
+          + ") does not match the counter (n=" + n + ", r=" + r + ").");
+    }
+  }
+
+
+  static void checkCompatible(final DGIMSummary a, final DGIMSummary b)
+  {
+    if (a.maximumStorageLength != b.maximumStorageLength)
+    {
+      throw new IllegalArgumentException("Summaries of different maximum sizes (n) cannot be combined.");
+    }
+    else if (a.maxBucketsPerSize != b.maxBucketsPerSize)
+    {
+      throw new IllegalArgumentException("Summaries of different numbers of buckets per size (r) cannot be combined.");
+    }
+  }
+
+
+  /**
+   * Count 1's within the latest k elements.
+   *
+   * @see SlidingWindowCounter#count(long)
+   */
+  public long count(final long k)
+  {
+    return count(new long[] { k })[0].getEstimate();
+  }
+
+
+  /**
+   * Count 1's within several windows at once.
+   *
+   * @see SlidingWindowCounter#count(long[])
+   */
+  public WindowEstimate[] count(final long[] ks)
+  {
+    final WindowEstimate[] estimates = new WindowEstimate[ks.length];
+    for (int i = 0; i < ks.length; i++)
+    {
+      final long k = ks[i];
+      if (k > maximumStorageLength)
+      {
+        throw new IllegalArgumentException(
+            "Value of k must be less than or equal to maximum stream length n (" + maximumStorageLength + ").");
+      }
+
+      long estimate = 0;
+      long lowerBound = 0;
+      long upperBound = 0;
+      for (int b = 0; k >= 1 && b < powers.length; b++)
+      {
+        final long bucketCount = Helper.powerOfTwo(powers[b]);
+
+        // Bucket is completely within the window of k.
+        if ((timer - beginTimes[b]) <= k)
+        {
+          estimate += bucketCount;
+          lowerBound += bucketCount;
+          upperBound += bucketCount;
+        }
+        // Bucket partially overlaps the window of k.
+        else if ((timer - endTimes[b]) <= k)
+        {
+          // Add just the affected proportion of the count, assuming uniform distribution
+          final double factor = ((double) (k - timer + endTimes[b])) / ((double) (endTimes[b] - beginTimes[b]));
+          estimate += Math.round(factor * bucketCount);
+          lowerBound += 1;
+          upperBound += bucketCount - 1;
+        }
+      }
+
+      estimates[i] = new WindowEstimate(k, estimate, lowerBound, upperBound);
+    }
+
+    return estimates;
+  }
+
+
+  /**
+   * Writes the summary in its binary format.
+   */
+  public void write(final DataOutput out)
+    throws IOException
+  {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeUTF(name);
+    out.writeLong(timer);
+    out.writeLong(maximumStorageLength);
+    out.writeInt(maxBucketsPerSize);
+    out.writeInt(powers.length);
+    for (int b = 0; b < powers.length; b++)
+    {
+      out.writeByte(powers[b]);
+      writeVarLong(out, zigZag(timer - endTimes[b]));
+      writeVarLong(out, endTimes[b] - beginTimes[b]);
+    }
+  }
+
+
+  /**
+   * Reads a summary written by {@link #write(DataOutput)}.
+   *
+   * @throws IOException
+   *           If the summary is corrupt, e.g. it has buckets of sizes that cannot be counted or more 1's than a long can hold.
+   */
+  public static DGIMSummary read(final DataInput in)
+    throws IOException
+  {
+    if (in.readInt() != MAGIC)
+    {
+      throw new IOException("Not a DGIM summary.");
+    }
+
+    final int version = in.readInt();
+    if (version != VERSION)
+    {
+      throw new IOException("Unsupported version " + version + " of DGIM summary.");
+    }
+
+    final String name = in.readUTF();
+    final long timer = in.readLong();
+    final long n = in.readLong();
+    final int r = in.readInt();
+    final int bucketCount = in.readInt();
+    if (n < 1 || r < 2 || bucketCount < 0)
+    {
+      throw new IOException("Corrupt DGIM summary of " + name + ".");
+    }
+
+    // The arrays grow while reading, so that a corrupt number of buckets fails at the end of the input instead of allocating it
+    long[] beginTimes = new long[Math.min(bucketCount, 1024)];
+    long[] endTimes = new long[beginTimes.length];
+    int[] powers = new int[beginTimes.length];
+    long ones = 0;
+    for (int b = 0; b < bucketCount; b++)
+    {
+      if (b == powers.length)
+      {
+        beginTimes = Arrays.copyOf(beginTimes, 2 * b);
+        endTimes = Arrays.copyOf(endTimes, 2 * b);
+        powers = Arrays.copyOf(powers, 2 * b);
+      }
+
+      powers[b] = in.readUnsignedByte();
+      endTimes[b] = timer - unZigZag(readVarLong(in));
+      final long span = readVarLong(in);
+      beginTimes[b] = endTimes[b] - span;
+      if (powers[b] > 62 || span < 0 || Long.MAX_VALUE - ones < Helper.powerOfTwo(powers[b]))
+      {
+        throw new IOException("Corrupt bucket of size 2^" + powers[b] + " in DGIM summary of " + name + ".");
+      }
+      ones += Helper.powerOfTwo(powers[b]);
+    }
+
+    return new DGIMSummary(name, timer, n, r, Arrays.copyOf(beginTimes, bucketCount), Arrays.copyOf(endTimes, bucketCount),
+        Arrays.copyOf(powers, bucketCount));
+  }
+
+
+  private static void writeVarLong(final DataOutput out, final long value)
+    throws IOException
+  {
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0)
+    {
+      out.writeByte((int) ((remaining & 0x7F) | 0x80));
+      remaining >>>= 7;
+    }
+    out.writeByte((int) remaining);
+  }
+
+
+  private static long readVarLong(final DataInput in)
+    throws IOException
+  {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7)
+    {
+      final int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0)
+      {
+        return value;
+      }
+    }
+
+    throw new IOException("Malformed variable-length number in DGIM summary.");
+  }
+
+
+  private static long zigZag(final long value)
+  {
+    return (value << 1) ^ (value >> 63);
+  }
+
+
+  private static long unZigZag(final long value)
+  {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+
+
+  /**
+   * The time of the summary, windows end at this time.
+   */
+  public long getTimer()
+  {
+    return timer;
+  }
+
+
+  public long getMaximumStorageLength()
+  {
+    return maximumStorageLength;
+  }
+
+
+  public int getMaxBucketsPerSize()
+  {
+    return maxBucketsPerSize;
+  }
+
+
+  public int getBucketCount()
+  {
+    return powers.length;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    final StringBuffer buf = new StringBuffer("DGIMSummary(" + name + "): Timestamp[" + timer + "]\r\n");
+
+    for (int b = 0; b < powers.length; b++)
+    {
+      buf.append("Bucket[2^" + powers[b] + "] count=" + Helper.powerOfTwo(powers[b]) + ", span="
+          + (endTimes[b] - beginTimes[b]));
+      buf.append("\r\n");
+    }
+
+    return buf.toString();
+  }
+
+}
@@ -0,0 +1,78 @@
+package de.l3s.lsdmproject.dgim;
+
+/**
+ * Counts the 1's of a stream of bits within a sliding window.
+ *
+ * @author Sebastian
+ *
+ */
+public interface SlidingWindowCounter
+{
+
+  /**
+   * Inserts a new value in front of the stream. True for 1, false for 0.
+   */
+  void insert(long timestamp, boolean value);
+
+
+  /**
+   * Count 1's within the latest k elements.
+   *
+   * @param k
+   *          Number of elements to consider.
+   * @return The count or 0 for negative k.
+   */
+  long count(long k);
+
+
+  /**
+   * Count 1's within several windows at once, each within the latest k elements. The buckets are traversed only once for all of
+   * them.
+   *
+   * @param ks
+   *          Numbers of elements to consider, in any order.
+   * @return The estimates and their error bounds, in the order of the given windows.
+   */
+  WindowEstimate[] count(long[] ks);
+
+
+  /**
+   * Returns an immutable copy of the current buckets, e.g. to write or merge them.
+   */
+  DGIMSummary toSummary();
+
+
+  /**
+   * Replaces the buckets by those of a summary of a single counter (see {@link #toSummary()}), e.g. to resume from a checkpoint.
+   * The clock is advanced to the time of the summary.
+   */
+  void restore(DGIMSummary summary);
+
+
+  /**
+   * Maximum number of buckets per size (r).
+   */
+  int getMaxBucketsPerSize();
+
+
+  /**
+   * Bound of the relative error of {@link #count(long)}.
+   */
+  double getErrorBound();
+
+
+  /**
+   * Estimated number of bytes occupied by the buckets.
+   */
+  long getMemoryEstimate();
+
+
+  /**
+   * Number of buckets removed so far, because they exceeded the maximum storage length.
+   */
+  long getExpiredBucketCount();
+
+
+  String getName();
+
+}
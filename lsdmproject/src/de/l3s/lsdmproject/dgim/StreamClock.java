@@ -0,0 +1,37 @@
+package de.l3s.lsdmproject.dgim;
+
+/**
+ * The current time of a stream, i.e. the latest timestamp seen so far.<br />
+ * A clock can be shared by a group of counters observing the same stream. The stream only has to advance the clock once per item
+ * and insert 1's into the counters they apply to, inserting 0's is not necessary.
+ *
+ * @author Sebastian
+ *
+ */
+public class StreamClock
+{
+
+  private long time = 0;
+
+
+  /**
+   * The latest timestamp seen so far.
+   */
+  public long getTime()
+  {
+    return time;
+  }
+
+
+  /**
+   * Advances the clock to the given timestamp. Older timestamps don't move the clock backwards.
+   */
+  public void advance(final long timestamp)
+  {
+    if (timestamp > time)
+    {
+      this.time = timestamp;
+    }
+  }
+
+}
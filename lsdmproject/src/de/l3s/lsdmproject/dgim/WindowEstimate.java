@@ -0,0 +1,75 @@
+package de.l3s.lsdmproject.dgim;
+
+/**
+ * The estimated count of 1's within a window of the latest k elements, together with the range the actual count is guaranteed to
+ * be in.
+ *
+ * @author Sebastian
+ *
+ */
+public class WindowEstimate
+{
+
+  private final long k;
+
+  private final long estimate;
+
+  private final long lowerBound;
+  private final long upperBound;
+
+
+  public WindowEstimate(final long k, final long estimate, final long lowerBound, final long upperBound)
+  {
+    this.k = k;
+    this.estimate = estimate;
+    this.lowerBound = lowerBound;
+    this.upperBound = upperBound;
+  }
+
+
+  public long getK()
+  {
+    return k;
+  }
+
+
+  public long getEstimate()
+  {
+    return estimate;
+  }
+
+
+  /**
+   * The actual count is at least this value.
+   */
+  public long getLowerBound()
+  {
+    return lowerBound;
+  }
+
+
+  /**
+   * The actual count is at most this value.
+   */
+  public long getUpperBound()
+  {
+    return upperBound;
+  }
+
+
+  /**
+   * Maximum absolute difference of the estimate and the actual count.
+   */
+  public long getErrorBound()
+  {
+    return Math.max(estimate - lowerBound, upperBound - estimate);
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "WindowEstimate[k=" + k + "] " + estimate + " (" + lowerBound + ".." + upperBound + ")";
+  }
+
+}
@@ -0,0 +1,127 @@
+package de.l3s.lsdmproject.dgim;
+
+/**
+ * Answers the counts of several windows in a single pass over the buckets of a DGIM counter.<br />
+ * The buckets have to be added from the newest to the oldest one. Windows are resolved in ascending order of k: all buckets
+ * completely within a window also lie within all larger windows, so a running sum is shared by all of them.
+ *
+ * @author Sebastian
+ *
+ */
+class WindowQuery
+{
+
+  private final long timer;
+
+  private final long[] ks;
+
+  /**
+   * Indexes of the windows in ascending order of k.
+   */
+  private final int[] order;
+
+  private final WindowEstimate[] estimates;
+
+  /**
+   * Position of the smallest window not resolved yet.
+   */
+  private int next = 0;
+
+  /**
+   * Sum of all buckets completely within the pending windows.
+   */
+  private long count = 0;
+
+
+  public WindowQuery(final long timer, final long maximumStorageLength, final long[] ks)
+  {
+    this.timer = timer;
+    this.ks = ks;
+    this.estimates = new WindowEstimate[ks.length];
+
+    // Sort the windows by k, there are only a few of them
+    this.order = new int[ks.length];
+    for (int i = 0; i < ks.length; i++)
+    {
+      if (ks[i] > maximumStorageLength)
+      {
+        throw new IllegalArgumentException(
+            "Value of k must be less than or equal to maximum stream length n (" + maximumStorageLength + ").");
+      }
+
+      int position = i;
+      while (position > 0 && ks[order[position - 1]] > ks[i])
+      {
+        order[position] = order[position - 1];
+        position--;
+      }
+      order[position] = i;
+    }
+
+    // Empty windows
+    while (next < order.length && ks[order[next]] < 1)
+    {
+      resolve(0, 0, 0);
+    }
+  }
+
+
+  /**
+   * Adds the next older bucket.
+   *
+   * @return False, if all windows are resolved and the remaining buckets can be skipped.
+   */
+  public boolean add(final long beginTime, final long endTime, final long bucketCount)
+  {
+    while (next < order.length)
+    {
+      final long k = ks[order[next]];
+
+      // Bucket is completely within the window of k, and thus within all larger ones.
+      if ((timer - beginTime) <= k)
+      {
+        count += bucketCount;
+        return true;
+      }
+      // Bucket partially overlaps the window of k.
+      else if ((timer - endTime) <= k)
+      {
+        // Add just the affected proportion of the count, assuming uniform distribution
+        final double factor = ((double) (k - timer + endTime)) / ((double) (endTime - beginTime));
+        // The latest 1 of the bucket is within the window, the earliest one is not
+        resolve(Math.round(factor * bucketCount), 1, bucketCount - 1);
+      }
+      // All following buckets don't overlap with k anymore
+      else
+      {
+        resolve(0, 0, 0);
+      }
+    }
+
+    return false;
+  }
+
+
+  private void resolve(final long partialCount, final long lowerPartialCount, final long upperPartialCount)
+  {
+    final int index = order[next++];
+    estimates[index] =
+      new WindowEstimate(ks[index], count + partialCount, count + lowerPartialCount, count + upperPartialCount);
+  }
+
+
+  /**
+   * Returns the estimates in the order of the requested windows.
+   */
+  public WindowEstimate[] finish()
+  {
+    // No more buckets, the count of the remaining windows is exact
+    while (next < order.length)
+    {
+      resolve(0, 0, 0);
+    }
+
+    return estimates;
+  }
+
+}
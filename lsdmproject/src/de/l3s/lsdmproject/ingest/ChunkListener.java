@@ -0,0 +1,20 @@
+package de.l3s.lsdmproject.ingest;
+
+/**
+ * Gets notified by {@link MappedLineSource} after all items of a chunk were handed to the {@link LineHandler}, on the same thread.
+ *
+ * @author Sebastian
+ *
+ */
+public interface ChunkListener
+{
+
+  /**
+   * @param offset
+   *          Position in the file right after the chunk, i.e. where processing has to resume to skip all handled items.
+   * @param itemCount
+   *          Number of items handled so far.
+   */
+  void chunkProcessed(long offset, long itemCount);
+
+}
@@ -0,0 +1,23 @@
+package de.l3s.lsdmproject.ingest;
+
+/**
+ * Consumes the Tweets replayed from an event log.
+ *
+ * @author Sebastian
+ *
+ */
+public interface EventHandler
+{
+
+  /**
+   * Handles a single Tweet.
+   *
+   * @param timestampMs
+   *          The timestamp or -1, if the Tweet has none.
+   * @param hashtagIds
+   *          Dictionary ids of the mentioned hashtags. Only the first hashtagCount entries are valid, the array is reused for the
+   *          next Tweet.
+   */
+  void handle(long id, long timestampMs, int[] hashtagIds, int hashtagCount);
+
+}
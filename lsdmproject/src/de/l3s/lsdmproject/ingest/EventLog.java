@@ -0,0 +1,109 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Constants and helpers of the binary event log format.<br />
+ * An event log stores the fields of Tweets required by the tasks in columns:
+ * <ul>
+ * <li>Header: magic number, version, number of Tweets, size of the dictionary and the offset and length of each section.</li>
+ * <li>Timestamps: the differences of consecutive <code>timestamp_ms</code> values (-1 for missing timestamps).</li>
+ * <li>Identifiers: the differences of consecutive Tweet identifiers.</li>
+ * <li>Hashtags: for each Tweet the number of mentioned hashtags followed by their dictionary ids.</li>
+ * <li>Dictionary: the length and UTF-8 bytes of each distinct hashtag (exactly as mentioned, case is kept).</li>
+ * </ul>
+ * All numbers within sections are variable-length encoded, signed differences are zig-zag encoded first.
+ *
+ * @author Sebastian
+ *
+ */
+public class EventLog
+{
+
+  static final int MAGIC = 0x4C534556;
+
+  static final int VERSION = 1;
+
+  static final int SECTION_TIMESTAMPS = 0;
+  static final int SECTION_IDS = 1;
+  static final int SECTION_HASHTAGS = 2;
+  static final int SECTION_DICTIONARY = 3;
+
+  static final int SECTION_COUNT = 4;
+
+  /**
+   * Magic number, version, tweet count, dictionary size, reserved int and offset/length of all sections.
+   */
+  static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + SECTION_COUNT * 16;
+
+
+  private EventLog()
+  {
+  }
+
+
+  /**
+   * Returns whether the given file starts with the magic number of an event log.
+   */
+  public static boolean isEventLog(final File file)
+    throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      final ByteBuffer magic = ByteBuffer.allocate(4);
+      while (magic.hasRemaining() && channel.read(magic) > 0)
+      {
+        // Read until the magic number is complete
+      }
+
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+  }
+
+
+  static void writeVarLong(final ByteBuffer out, final long value)
+  {
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0)
+    {
+      out.put((byte) ((remaining & 0x7F) | 0x80));
+      remaining >>>= 7;
+    }
+    out.put((byte) remaining);
+  }
+
+
+  static long readVarLong(final ByteBuffer in)
+  {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do
+    {
+      b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    }
+    while (b < 0);
+
+    return value;
+  }
+
+
+  static long zigZag(final long value)
+  {
+    return (value << 1) ^ (value >> 63);
+  }
+
+
+  static long unZigZag(final long value)
+  {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+}
@@ -0,0 +1,171 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.l3s.lsdmproject.model.Tweet;
+import de.l3s.lsdmproject.model.TweetEntities;
+import de.l3s.lsdmproject.model.TweetHashMention;
+
+
+/**
+ * Replays a binary event log (see {@link EventLog}) from memory-mapped columns.
+ *
+ * @author Sebastian
+ *
+ */
+public class EventLogReader
+{
+
+  private final File file;
+
+  private final long tweetCount;
+
+  private final String[] dictionary;
+
+
+  public EventLogReader(final File file)
+    throws IOException
+  {
+    this.file = file;
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      final ByteBuffer header = readHeader(channel);
+      this.tweetCount = header.getLong(8);
+
+      final ByteBuffer dictionaryBuffer = mapSection(channel, header, EventLog.SECTION_DICTIONARY);
+      this.dictionary = new String[header.getInt(16)];
+      for (int i = 0; i < dictionary.length; i++)
+      {
+        final byte[] bytes = new byte[(int) EventLog.readVarLong(dictionaryBuffer)];
+        dictionaryBuffer.get(bytes);
+        dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+    }
+  }
+
+
+  /**
+   * Returns the number of Tweets in the log.
+   */
+  public long getTweetCount()
+  {
+    return tweetCount;
+  }
+
+
+  /**
+   * Returns all hashtags mentioned in the log, indexed by their dictionary id.
+   */
+  public String[] getDictionary()
+  {
+    return dictionary;
+  }
+
+
+  /**
+   * Hands all Tweets of the log to the given handler, in the order in which they were written.
+   *
+   * @return The number of replayed Tweets.
+   */
+  public long replay(final EventHandler handler)
+    throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      final ByteBuffer header = readHeader(channel);
+      final ByteBuffer timestamps = mapSection(channel, header, EventLog.SECTION_TIMESTAMPS);
+      final ByteBuffer ids = mapSection(channel, header, EventLog.SECTION_IDS);
+      final ByteBuffer hashtags = mapSection(channel, header, EventLog.SECTION_HASHTAGS);
+
+      int[] hashtagIds = new int[16];
+      long timestamp = 0;
+      long id = 0;
+      for (long i = 0; i < tweetCount; i++)
+      {
+        timestamp += EventLog.unZigZag(EventLog.readVarLong(timestamps));
+        id += EventLog.unZigZag(EventLog.readVarLong(ids));
+
+        final int hashtagCount = (int) EventLog.readVarLong(hashtags);
+        if (hashtagCount > hashtagIds.length)
+        {
+          hashtagIds = Arrays.copyOf(hashtagIds, hashtagCount);
+        }
+        for (int h = 0; h < hashtagCount; h++)
+        {
+          hashtagIds[h] = (int) EventLog.readVarLong(hashtags);
+        }
+
+        handler.handle(id, timestamp, hashtagIds, hashtagCount);
+      }
+
+      return tweetCount;
+    }
+  }
+
+
+  /**
+   * Creates a {@link Tweet} from a replayed event.
+   */
+  public Tweet toTweet(final long id, final long timestampMs, final int[] hashtagIds, final int hashtagCount)
+  {
+    final List<TweetHashMention> hashtags = new ArrayList<>(hashtagCount);
+    for (int h = 0; h < hashtagCount; h++)
+    {
+      hashtags.add(new TweetHashMention(dictionary[hashtagIds[h]]));
+    }
+
+    final String timestamp = timestampMs == -1 ? null : Long.toString(timestampMs);
+
+    return new Tweet(id, timestamp, new TweetEntities(hashtags));
+  }
+
+
+  private ByteBuffer readHeader(final FileChannel channel)
+    throws IOException
+  {
+    final ByteBuffer header = ByteBuffer.allocate(EventLog.HEADER_SIZE);
+    while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+    {
+      // Read until the header is complete
+    }
+
+    if (header.hasRemaining() || header.getInt(0) != EventLog.MAGIC)
+    {
+      throw new IOException(file.getAbsolutePath() + " is not an event log.");
+    }
+    else if (header.getInt(4) != EventLog.VERSION)
+    {
+      throw new IOException(
+          "Unsupported event log version " + header.getInt(4) + " (expected " + EventLog.VERSION + ") in " + file.getAbsolutePath());
+    }
+
+    return header;
+  }
+
+
+  private ByteBuffer mapSection(final FileChannel channel, final ByteBuffer header, final int section)
+    throws IOException
+  {
+    final long offset = header.getLong(24 + section * 16);
+    final long length = header.getLong(24 + section * 16 + 8);
+
+    if (length > Integer.MAX_VALUE)
+    {
+      throw new IOException("Section " + section + " of " + file.getAbsolutePath() + " exceeds the maximum mappable size of "
+          + Integer.MAX_VALUE + " bytes.");
+    }
+
+    return channel.map(MapMode.READ_ONLY, offset, length);
+  }
+
+}
@@ -0,0 +1,287 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+import de.l3s.lsdmproject.model.HashtagDictionary;
+import de.l3s.lsdmproject.model.Tweet;
+
+
+/**
+ * Writes Tweets to a binary event log (see {@link EventLog}). The columns are written to temporary files first and combined when
+ * the writer is closed.
+ *
+ * @author Sebastian
+ *
+ */
+public class EventLogWriter
+  implements Closeable
+{
+
+  private final File target;
+
+  private final ColumnWriter timestamps;
+  private final ColumnWriter ids;
+  private final ColumnWriter hashtags;
+
+  /**
+   * Distinct hashtags, exactly as mentioned.
+   */
+  private final HashtagDictionary dictionary = new HashtagDictionary(false);
+
+  private long tweetCount = 0;
+  private long lastTimestamp = 0;
+  private long lastId = 0;
+
+
+  public EventLogWriter(final File target)
+    throws IOException
+  {
+    this.target = target;
+    this.timestamps = new ColumnWriter();
+    this.ids = new ColumnWriter();
+    this.hashtags = new ColumnWriter();
+  }
+
+
+  /**
+   * Converts a file of JSON encoded Tweets (one per line) into an event log.
+   *
+   * @return The number of converted Tweets.
+   */
+  public static long convert(final File source, final File target)
+    throws IOException
+  {
+    final ThreadLocal<ScannedTweet> scannedTweets = new ThreadLocal<ScannedTweet>()
+    {
+
+      @Override
+      protected ScannedTweet initialValue()
+      {
+        return new ScannedTweet();
+      }
+
+    };
+
+    try (final EventLogWriter writer = new EventLogWriter(target))
+    {
+      return new MappedLineSource(source).process(new LineParser<Tweet>()
+      {
+
+        @Override
+        public Tweet parse(final ByteBuffer buffer, final int begin, final int end)
+        {
+          final ScannedTweet scanned = scannedTweets.get();
+          TweetScanner.scan(buffer, begin, end, scanned);
+          return scanned.toTweet();
+        }
+
+      }, new LineHandler<Tweet>()
+      {
+
+        @Override
+        public void handle(final Tweet tweet)
+        {
+          try
+          {
+            writer.write(tweet.getId(), tweet.getTimestampMs(), tweet.getHashtags());
+          }
+          catch (IOException e)
+          {
+            throw new IllegalStateException("Writing to " + target.getAbsolutePath() + " failed.", e);
+          }
+        }
+
+      });
+    }
+  }
+
+
+  /**
+   * Appends a Tweet to the log.
+   *
+   * @param timestampMs
+   *          The timestamp or -1, if the Tweet has none.
+   */
+  public void write(final long id, final long timestampMs, final Collection<String> mentionedHashtags)
+    throws IOException
+  {
+    timestamps.writeVarLong(EventLog.zigZag(timestampMs - lastTimestamp));
+    ids.writeVarLong(EventLog.zigZag(id - lastId));
+    hashtags.writeVarLong(mentionedHashtags.size());
+
+    for (final String hashtag : mentionedHashtags)
+    {
+      hashtags.writeVarLong(dictionary.intern(hashtag));
+    }
+
+    lastTimestamp = timestampMs;
+    lastId = id;
+    tweetCount++;
+  }
+
+
+  /**
+   * Combines header, columns and dictionary into the target file.
+   */
+  @Override
+  public void close()
+    throws IOException
+  {
+    try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING))
+    {
+      final long[] offsets = new long[EventLog.SECTION_COUNT];
+      final long[] lengths = new long[EventLog.SECTION_COUNT];
+
+      long position = EventLog.HEADER_SIZE;
+      final ColumnWriter[] columns = { timestamps, ids, hashtags };
+      for (int section = 0; section < columns.length; section++)
+      {
+        offsets[section] = position;
+        lengths[section] = columns[section].transferTo(out, position);
+        position += lengths[section];
+      }
+
+      // Dictionary
+      final ColumnWriter dictionaryColumn = new ColumnWriter();
+      try
+      {
+        for (int id = 0; id < dictionary.size(); id++)
+        {
+          final byte[] bytes = dictionary.getHashtag(id).getBytes(StandardCharsets.UTF_8);
+          dictionaryColumn.writeVarLong(bytes.length);
+          dictionaryColumn.write(bytes);
+        }
+
+        offsets[EventLog.SECTION_DICTIONARY] = position;
+        lengths[EventLog.SECTION_DICTIONARY] = dictionaryColumn.transferTo(out, position);
+      }
+      finally
+      {
+        dictionaryColumn.delete();
+      }
+
+      // Header
+      final ByteBuffer header = ByteBuffer.allocate(EventLog.HEADER_SIZE);
+      header.putInt(EventLog.MAGIC);
+      header.putInt(EventLog.VERSION);
+      header.putLong(tweetCount);
+      header.putInt(dictionary.size());
+      header.putInt(0);
+      for (int section = 0; section < EventLog.SECTION_COUNT; section++)
+      {
+        header.putLong(offsets[section]);
+        header.putLong(lengths[section]);
+      }
+      header.flip();
+      while (header.hasRemaining())
+      {
+        out.write(header, header.position());
+      }
+    }
+    finally
+    {
+      timestamps.delete();
+      ids.delete();
+      hashtags.delete();
+    }
+  }
+
+
+  /**
+   * Buffers a single column in a temporary file.
+   */
+  private static class ColumnWriter
+  {
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+
+    public ColumnWriter()
+      throws IOException
+    {
+      this.file = File.createTempFile("lsdm-column", ".tmp");
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.READ);
+    }
+
+
+    public void writeVarLong(final long value)
+      throws IOException
+    {
+      // A variable-length long takes up to 10 bytes
+      if (buffer.remaining() < 10)
+      {
+        flush();
+      }
+
+      EventLog.writeVarLong(buffer, value);
+    }
+
+
+    public void write(final byte[] bytes)
+      throws IOException
+    {
+      for (final byte b : bytes)
+      {
+        if (!buffer.hasRemaining())
+        {
+          flush();
+        }
+        buffer.put(b);
+      }
+    }
+
+
+    /**
+     * Appends the column to the target at the given position and returns its length.
+     */
+    public long transferTo(final FileChannel target, final long position)
+      throws IOException
+    {
+      flush();
+
+      final long size = channel.size();
+      long transferred = 0;
+      while (transferred < size)
+      {
+        transferred += channel.transferTo(transferred, size - transferred, target.position(position + transferred));
+      }
+
+      return size;
+    }
+
+
+    private void flush()
+      throws IOException
+    {
+      buffer.flip();
+      while (buffer.hasRemaining())
+      {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+
+    public void delete()
+      throws IOException
+    {
+      channel.close();
+      Files.deleteIfExists(file.toPath());
+    }
+
+  }
+
+}
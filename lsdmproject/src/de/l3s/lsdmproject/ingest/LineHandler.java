@@ -0,0 +1,15 @@
+package de.l3s.lsdmproject.ingest;
+
+/**
+ * Consumes the items parsed from a source file. Items are handed over one after another on the calling thread, in the order of
+ * the lines in the file.
+ *
+ * @author Sebastian
+ *
+ */
+public interface LineHandler<T>
+{
+
+  void handle(T item);
+
+}
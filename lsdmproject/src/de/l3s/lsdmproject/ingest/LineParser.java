@@ -0,0 +1,23 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Parses a single line of a source file. Implementations are called concurrently from several worker threads and therefore must
+ * not share mutable state.
+ *
+ * @author Sebastian
+ *
+ */
+public interface LineParser<T>
+{
+
+  /**
+   * Parses the bytes from begin (inclusive) to end (exclusive) of the given buffer. The line terminator is not part of the range.
+   *
+   * @return The parsed item or null, if the line should be skipped.
+   */
+  T parse(ByteBuffer buffer, int begin, int end);
+
+}
@@ -0,0 +1,254 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Reads a line-wise encoded source file using memory-mapped chunks.<br />
+ * The file is split into chunks that end on a line break. The chunks are parsed in parallel on a fork-join pool, but the parsed
+ * items are handed to the {@link LineHandler} on the calling thread in the order of the file. Only a bounded number of chunks is
+ * in flight at once, so the memory usage does not depend on the size of the file.
+ *
+ * @author Sebastian
+ *
+ */
+public class MappedLineSource
+{
+
+  /**
+   * Default size of a chunk in bytes. A chunk is extended up to the next line break.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+  /**
+   * Size of the buffer used to look for line breaks at chunk borders.
+   */
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+
+  private final int chunkSize;
+
+  private final int parallelism;
+
+
+  public MappedLineSource(final File file)
+  {
+    this(file, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+  }
+
+
+  /**
+   * @param chunkSize
+   *          Minimum size of a chunk in bytes.
+   * @param parallelism
+   *          Number of worker threads used for parsing.
+   */
+  public MappedLineSource(final File file, final int chunkSize, final int parallelism)
+  {
+    if (chunkSize < 1)
+    {
+      throw new IllegalArgumentException("Chunk size must be greater than or equal to 1.");
+    }
+    else if (parallelism < 1)
+    {
+      throw new IllegalArgumentException("Parallelism must be greater than or equal to 1.");
+    }
+
+    this.file = file;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+  }
+
+
+  /**
+   * Parses all lines of the file and hands the results to the given handler.
+   *
+   * @return The number of parsed items (lines that were not skipped by the parser).
+   */
+  public <T> long process(final LineParser<T> parser, final LineHandler<T> handler)
+    throws IOException
+  {
+    return process(parser, handler, 0, null);
+  }
+
+
+  /**
+   * Parses all lines of the file from the given offset on and hands the results to the given handler.
+   *
+   * @param startOffset
+   *          Position to start at, which has to be the beginning of a line (e.g. an offset reported to a {@link ChunkListener}).
+   * @param listener
+   *          Gets notified after each chunk or null.
+   * @return The number of parsed items (lines that were not skipped by the parser).
+   */
+  public <T> long process(final LineParser<T> parser, final LineHandler<T> handler, final long startOffset,
+      final ChunkListener listener)
+    throws IOException
+  {
+    if (startOffset < 0)
+    {
+      throw new IllegalArgumentException("Start offset must be greater than or equal to 0.");
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      final long size = channel.size();
+      final ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+      final ArrayDeque<ForkJoinTask<List<T>>> pending = new ArrayDeque<>();
+      final ArrayDeque<Long> pendingEnds = new ArrayDeque<>();
+
+      long position = startOffset;
+      long itemCount = 0;
+      while (position < size || !pending.isEmpty())
+      {
+        // Keep the workers busy, but don't map the whole file at once
+        while (position < size && pending.size() < 2 * parallelism)
+        {
+          final long end = findChunkEnd(channel, scanBuffer, position, size);
+          if (end - position > Integer.MAX_VALUE)
+          {
+            throw new IOException("A chunk of " + file.getAbsolutePath() + " exceeds the maximum mappable size of "
+                + Integer.MAX_VALUE + " bytes.");
+          }
+
+          final MappedByteBuffer chunk = channel.map(MapMode.READ_ONLY, position, end - position);
+          pending.add(pool.submit(new ChunkTask<T>(chunk, parser)));
+          pendingEnds.add(end);
+          position = end;
+        }
+
+        final List<T> items = pending.poll().join();
+        for (final T item : items)
+        {
+          handler.handle(item);
+        }
+        itemCount += items.size();
+
+        final long chunkEnd = pendingEnds.poll();
+        if (listener != null)
+        {
+          listener.chunkProcessed(chunkEnd, itemCount);
+        }
+      }
+
+      return itemCount;
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Returns the position right after the first line break at or after the nominal end of a chunk beginning at the given position.
+   */
+  private long findChunkEnd(final FileChannel channel, final ByteBuffer scanBuffer, final long begin, final long size)
+    throws IOException
+  {
+    long position = begin + chunkSize - 1;
+    if (position >= size - 1)
+    {
+      return size;
+    }
+
+    while (position < size)
+    {
+      scanBuffer.clear();
+      final int read = channel.read(scanBuffer, position);
+      if (read < 1)
+      {
+        break;
+      }
+
+      for (int i = 0; i < read; i++)
+      {
+        if (scanBuffer.get(i) == '\n')
+        {
+          return position + i + 1;
+        }
+      }
+
+      position += read;
+    }
+
+    return size;
+  }
+
+
+  /**
+   * Splits a chunk into lines and parses them.
+   */
+  private static class ChunkTask<T>
+    extends RecursiveTask<List<T>>
+  {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ByteBuffer chunk;
+
+    private final LineParser<T> parser;
+
+
+    public ChunkTask(final ByteBuffer chunk, final LineParser<T> parser)
+    {
+      this.chunk = chunk;
+      this.parser = parser;
+    }
+
+
+    @Override
+    protected List<T> compute()
+    {
+      final ArrayList<T> items = new ArrayList<>();
+      final int limit = chunk.limit();
+
+      int begin = 0;
+      while (begin < limit)
+      {
+        int end = begin;
+        while (end < limit && chunk.get(end) != '\n')
+        {
+          end++;
+        }
+
+        // Ignore line terminators and empty lines
+        int lineEnd = end;
+        if (lineEnd > begin && chunk.get(lineEnd - 1) == '\r')
+        {
+          lineEnd--;
+        }
+
+        if (lineEnd > begin)
+        {
+          final T item = parser.parse(chunk, begin, lineEnd);
+          if (item != null)
+          {
+            items.add(item);
+          }
+        }
+
+        begin = end + 1;
+      }
+
+      return items;
+    }
+
+  }
+
+}
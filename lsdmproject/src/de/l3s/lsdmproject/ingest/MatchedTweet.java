@@ -0,0 +1,59 @@
+package de.l3s.lsdmproject.ingest;
+
+import de.l3s.lsdmproject.model.Tweet;
+
+
+/**
+ * A Tweet reduced to its timestamp and the dictionary ids of the matched hashtags. The full {@link Tweet} is only available if it was
+ * requested and at least one hashtag matched.
+ *
+ * @author Sebastian
+ *
+ */
+public class MatchedTweet
+{
+
+  public static final int[] NO_MATCHES = new int[0];
+
+  private final long timestampMs;
+
+  private final int[] matches;
+
+  private final Tweet tweet;
+
+
+  public MatchedTweet(final long timestampMs, final int[] matches, final Tweet tweet)
+  {
+    this.timestampMs = timestampMs;
+    this.matches = matches;
+    this.tweet = tweet;
+  }
+
+
+  /**
+   * Returns the tweet's timestamp in milliseconds. In case that the timestamp was null, -1 is returned.
+   */
+  public long getTimestampMs()
+  {
+    return timestampMs;
+  }
+
+
+  /**
+   * Returns the dictionary ids of the matched hashtags in ascending order.
+   */
+  public int[] getMatches()
+  {
+    return matches;
+  }
+
+
+  /**
+   * Returns the parsed tweet or null, if it was not materialized.
+   */
+  public Tweet getTweet()
+  {
+    return tweet;
+  }
+
+}
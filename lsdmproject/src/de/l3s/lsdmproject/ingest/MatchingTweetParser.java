@@ -0,0 +1,176 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import de.l3s.lsdmproject.model.HashtagDictionary;
+import de.l3s.lsdmproject.model.Tweet;
+
+
+/**
+ * Scans lines with {@link TweetScanner} and resolves their hashtags to ids of a {@link HashtagDictionary}. Plain ASCII mentions are
+ * looked up by their bytes, so no Strings are decoded for Tweets without a matching hashtag (unless a mention contains escape
+ * sequences or non-ASCII characters).
+ *
+ * @author Sebastian
+ *
+ */
+public class MatchingTweetParser
+  implements LineParser<MatchedTweet>
+{
+
+  private final HashtagDictionary dictionary;
+
+  private final boolean materialize;
+
+  private final ThreadLocal<ScannedTweet> scannedTweets = new ThreadLocal<ScannedTweet>()
+  {
+
+    @Override
+    protected ScannedTweet initialValue()
+    {
+      return new ScannedTweet();
+    }
+
+  };
+
+
+  /**
+   * @param dictionary
+   *          The hashtags to match. The dictionary must not be modified while parsing.
+   * @param materialize
+   *          Whether to create a {@link Tweet} for lines with at least one matching hashtag.
+   */
+  public MatchingTweetParser(final HashtagDictionary dictionary, final boolean materialize)
+  {
+    this.dictionary = dictionary;
+    this.materialize = materialize;
+  }
+
+
+  @Override
+  public MatchedTweet parse(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final ScannedTweet scanned = scannedTweets.get();
+    TweetScanner.scan(buffer, begin, end, scanned);
+
+    int[] matches = null;
+    int matchCount = 0;
+    for (int m = 0; m < scanned.getHashtagCount(); m++)
+    {
+      final int hashtagBegin = scanned.getHashtagBegin(m);
+      final int hashtagEnd = scanned.getHashtagEnd(m);
+
+      final int id;
+      if (TweetScanner.isPlainAscii(buffer, hashtagBegin, hashtagEnd))
+      {
+        id = dictionary.lookupAscii(buffer, hashtagBegin, hashtagEnd);
+      }
+      else
+      {
+        id = dictionary.lookup(scanned.getHashtag(m));
+      }
+
+      if (id != -1)
+      {
+        if (matches == null)
+        {
+          matches = new int[scanned.getHashtagCount()];
+        }
+        matchCount = addMatch(matches, matchCount, id);
+      }
+    }
+
+    if (matchCount == 0)
+    {
+      return new MatchedTweet(scanned.getTimestampMs(), MatchedTweet.NO_MATCHES, null);
+    }
+
+    return new MatchedTweet(scanned.getTimestampMs(), sortedMatches(matches, matchCount),
+        materialize ? scanned.toTweet() : null);
+  }
+
+
+  /**
+   * Replays an event log and resolves the hashtags of its Tweets, yielding the same results as parsing the original JSON file.
+   * Each hashtag of the log's dictionary is looked up only once.
+   *
+   * @return The number of replayed Tweets.
+   */
+  public long replay(final EventLogReader reader, final LineHandler<MatchedTweet> handler)
+    throws IOException
+  {
+    final String[] logDictionary = reader.getDictionary();
+    final int[] logIds = new int[logDictionary.length];
+    for (int i = 0; i < logDictionary.length; i++)
+    {
+      logIds[i] = dictionary.lookup(logDictionary[i]);
+    }
+
+    return reader.replay(new EventHandler()
+    {
+
+      private int[] matches = new int[16];
+
+
+      @Override
+      public void handle(final long id, final long timestampMs, final int[] hashtagIds, final int hashtagCount)
+      {
+        if (hashtagCount > matches.length)
+        {
+          matches = new int[hashtagCount];
+        }
+
+        int matchCount = 0;
+        for (int i = 0; i < hashtagCount; i++)
+        {
+          final int hashtagId = logIds[hashtagIds[i]];
+          if (hashtagId != -1)
+          {
+            matchCount = addMatch(matches, matchCount, hashtagId);
+          }
+        }
+
+        if (matchCount == 0)
+        {
+          handler.handle(new MatchedTweet(timestampMs, MatchedTweet.NO_MATCHES, null));
+          return;
+        }
+
+        final Tweet tweet = materialize ? reader.toTweet(id, timestampMs, hashtagIds, hashtagCount) : null;
+        handler.handle(new MatchedTweet(timestampMs, sortedMatches(matches, matchCount), tweet));
+      }
+
+    });
+  }
+
+
+  /**
+   * Adds the id to the matches, unless it is already contained. Returns the new number of matches.
+   */
+  private static int addMatch(final int[] matches, final int matchCount, final int id)
+  {
+    // Tweets mention only a few hashtags, a linear search is fine
+    for (int i = 0; i < matchCount; i++)
+    {
+      if (matches[i] == id)
+      {
+        return matchCount;
+      }
+    }
+
+    matches[matchCount] = id;
+    return matchCount + 1;
+  }
+
+
+  private static int[] sortedMatches(final int[] matches, final int matchCount)
+  {
+    final int[] sorted = Arrays.copyOf(matches, matchCount);
+    Arrays.sort(sorted);
+
+    return sorted;
+  }
+
+}
@@ -0,0 +1,201 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.util.Arrays;
+
+
+/**
+ * Restores the order of Tweets, whose timestamps are slightly out of order, e.g. because the source file was merged from several
+ * collectors.<br />
+ * Tweets are held in a min-heap keyed by their timestamp and handed over to the next handler, as soon as they are older than the
+ * latest timestamp minus the allowed lateness (the watermark). A Tweet arriving after a later one has already been handed over
+ * can't be placed correctly anymore and is dropped. If the heap reaches its capacity, the oldest Tweet is handed over before the
+ * watermark passes it, so memory stays bounded even if the timestamps jump backwards. Tweets without timestamp are handed over
+ * right away.
+ *
+ * @author Sebastian
+ *
+ */
+public class ReorderBuffer
+  implements LineHandler<MatchedTweet>
+{
+
+  private final long allowedLateness;
+
+  private final int capacity;
+
+  private final LineHandler<MatchedTweet> handler;
+
+  /**
+   * Binary min-heap of the buffered Tweets and their timestamps.
+   */
+  private long[] timestamps = new long[64];
+  private MatchedTweet[] tweets = new MatchedTweet[64];
+  private int size = 0;
+
+  private long latestTimestamp = Long.MIN_VALUE;
+
+  /**
+   * Timestamp of the latest Tweet handed over, earlier Tweets are too late.
+   */
+  private long releasedTimestamp = Long.MIN_VALUE;
+
+  private long droppedCount = 0;
+
+  private long forcedCount = 0;
+
+
+  /**
+   * @param allowedLateness
+   *          Maximum time a Tweet may arrive after later ones, in milliseconds.
+   * @param capacity
+   *          Maximum number of buffered Tweets.
+   * @param handler
+   *          Receives the Tweets in the order of their timestamps.
+   */
+  public ReorderBuffer(final long allowedLateness, final int capacity, final LineHandler<MatchedTweet> handler)
+  {
+    if (allowedLateness < 0)
+    {
+      throw new IllegalArgumentException("Allowed lateness must be greater than or equal to 0.");
+    }
+    else if (capacity < 1)
+    {
+      throw new IllegalArgumentException("Capacity must be greater than or equal to 1.");
+    }
+
+    this.allowedLateness = allowedLateness;
+    this.capacity = capacity;
+    this.handler = handler;
+  }
+
+
+  @Override
+  public void handle(final MatchedTweet t)
+  {
+    final long timestamp = t.getTimestampMs();
+    if (timestamp == -1)
+    {
+      handler.handle(t);
+      return;
+    }
+    else if (timestamp < releasedTimestamp)
+    {
+      droppedCount++;
+      return;
+    }
+
+    push(timestamp, t);
+    latestTimestamp = Math.max(latestTimestamp, timestamp);
+
+    final long watermark = latestTimestamp - allowedLateness;
+    while (size > 0 && timestamps[0] <= watermark)
+    {
+      release();
+    }
+    while (size > capacity)
+    {
+      forcedCount++;
+      release();
+    }
+  }
+
+
+  /**
+   * Hands over all buffered Tweets, at the end of the stream.
+   */
+  public void flush()
+  {
+    while (size > 0)
+    {
+      release();
+    }
+  }
+
+
+  /**
+   * Number of Tweets dropped, because they arrived too late.
+   */
+  public long getDroppedCount()
+  {
+    return droppedCount;
+  }
+
+
+  /**
+   * Number of Tweets handed over before the watermark passed them, because the buffer was full.
+   */
+  public long getForcedCount()
+  {
+    return forcedCount;
+  }
+
+
+  private void push(final long timestamp, final MatchedTweet t)
+  {
+    if (size == timestamps.length)
+    {
+      timestamps = Arrays.copyOf(timestamps, 2 * size);
+      tweets = Arrays.copyOf(tweets, 2 * size);
+    }
+
+    // Sift up
+    int i = size++;
+    while (i > 0)
+    {
+      final int parent = (i - 1) >>> 1;
+      if (timestamps[parent] <= timestamp)
+      {
+        break;
+      }
+      timestamps[i] = timestamps[parent];
+      tweets[i] = tweets[parent];
+      i = parent;
+    }
+    timestamps[i] = timestamp;
+    tweets[i] = t;
+  }
+
+
+  /**
+   * Removes the oldest Tweet and hands it over.
+   */
+  private void release()
+  {
+    final MatchedTweet oldest = tweets[0];
+    releasedTimestamp = timestamps[0];
+
+    // Sift the last one down from the root
+    size--;
+    final long timestamp = timestamps[size];
+    final MatchedTweet t = tweets[size];
+    tweets[size] = null;
+    int i = 0;
+    while (true)
+    {
+      int child = 2 * i + 1;
+      if (child >= size)
+      {
+        break;
+      }
+      if (child + 1 < size && timestamps[child + 1] < timestamps[child])
+      {
+        child++;
+      }
+      if (timestamp <= timestamps[child])
+      {
+        break;
+      }
+      timestamps[i] = timestamps[child];
+      tweets[i] = tweets[child];
+      i = child;
+    }
+    if (size > 0)
+    {
+      timestamps[i] = timestamp;
+      tweets[i] = t;
+    }
+
+    handler.handle(oldest);
+  }
+
+}
@@ -0,0 +1,140 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.l3s.lsdmproject.model.Tweet;
+import de.l3s.lsdmproject.model.TweetEntities;
+import de.l3s.lsdmproject.model.TweetHashMention;
+
+
+/**
+ * The result of scanning a Tweet with {@link TweetScanner}. Hashtags are stored as positions within the scanned buffer, so they
+ * are only decoded on demand. Instances are reused for consecutive lines and must not be shared between threads.
+ *
+ * @author Sebastian
+ *
+ */
+public class ScannedTweet
+{
+
+  private ByteBuffer buffer;
+
+  private long id;
+
+  private long timestampMs;
+
+  private int hashtagCount;
+
+  private int[] hashtagBegins = new int[8];
+  private int[] hashtagEnds = new int[8];
+
+
+  void reset(final ByteBuffer buffer)
+  {
+    this.buffer = buffer;
+    this.id = 0;
+    this.timestampMs = -1;
+    this.hashtagCount = 0;
+  }
+
+
+  void setId(final long id)
+  {
+    this.id = id;
+  }
+
+
+  void setTimestampMs(final long timestampMs)
+  {
+    this.timestampMs = timestampMs;
+  }
+
+
+  void addHashtag(final int begin, final int end)
+  {
+    if (hashtagCount == hashtagBegins.length)
+    {
+      hashtagBegins = Arrays.copyOf(hashtagBegins, 2 * hashtagCount);
+      hashtagEnds = Arrays.copyOf(hashtagEnds, 2 * hashtagCount);
+    }
+
+    hashtagBegins[hashtagCount] = begin;
+    hashtagEnds[hashtagCount] = end;
+    hashtagCount++;
+  }
+
+
+  public ByteBuffer getBuffer()
+  {
+    return buffer;
+  }
+
+
+  public long getId()
+  {
+    return id;
+  }
+
+
+  /**
+   * Returns the tweet's timestamp in milliseconds. In case that the timestamp was null, -1 is returned.
+   */
+  public long getTimestampMs()
+  {
+    return timestampMs;
+  }
+
+
+  public int getHashtagCount()
+  {
+    return hashtagCount;
+  }
+
+
+  /**
+   * Position of the first byte of the i-th hashtag's (still JSON escaped) text.
+   */
+  public int getHashtagBegin(final int i)
+  {
+    return hashtagBegins[i];
+  }
+
+
+  /**
+   * Position after the last byte of the i-th hashtag's (still JSON escaped) text.
+   */
+  public int getHashtagEnd(final int i)
+  {
+    return hashtagEnds[i];
+  }
+
+
+  /**
+   * Decodes the text of the i-th hashtag.
+   */
+  public String getHashtag(final int i)
+  {
+    return TweetScanner.decodeString(buffer, hashtagBegins[i], hashtagEnds[i]);
+  }
+
+
+  /**
+   * Creates a {@link Tweet} from the scanned fields. This decodes all hashtags.
+   */
+  public Tweet toTweet()
+  {
+    final List<TweetHashMention> hashtags = new ArrayList<>(hashtagCount);
+    for (int i = 0; i < hashtagCount; i++)
+    {
+      hashtags.add(new TweetHashMention(getHashtag(i)));
+    }
+
+    final String timestamp = timestampMs == -1 ? null : Long.toString(timestampMs);
+
+    return new Tweet(id, timestamp, new TweetEntities(hashtags));
+  }
+
+}
@@ -0,0 +1,29 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import de.l3s.lsdmproject.model.Tweet;
+
+
+/**
+ * Decodes a UTF-8 encoded line and parses it using {@link TweetReader}.
+ *
+ * @author Sebastian
+ *
+ */
+public class TweetLineParser
+  implements LineParser<Tweet>
+{
+
+  @Override
+  public Tweet parse(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final ByteBuffer line = buffer.duplicate();
+    line.limit(end);
+    line.position(begin);
+
+    return TweetReader.parse(StandardCharsets.UTF_8.decode(line).toString());
+  }
+
+}
@@ -0,0 +1,209 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import de.l3s.lsdmproject.model.Tweet;
+import de.l3s.lsdmproject.model.TweetEntities;
+import de.l3s.lsdmproject.model.TweetHashMention;
+
+
+/**
+ * Reads JSON encoded Tweets (one per line) from a character stream.<br />
+ * Only the fields required by the tasks are extracted: <code>id</code>, <code>timestamp_ms</code> and
+ * <code>entities.hashtags[].text</code>. All other values are skipped on token level, so no objects are created for them.
+ *
+ * @author Sebastian
+ *
+ */
+public class TweetReader
+  implements Closeable
+{
+
+  private final JsonReader json;
+
+
+  public TweetReader(final Reader reader)
+  {
+    this.json = new JsonReader(reader);
+    // Lenient mode allows a sequence of top-level objects within one stream
+    this.json.setLenient(true);
+  }
+
+
+  /**
+   * Returns the next Tweet of the stream or null, if the end of the stream is reached.
+   *
+   * @throws JsonSyntaxException
+   *           If the stream contains something else than JSON objects.
+   */
+  public Tweet next()
+    throws IOException
+  {
+    try
+    {
+      if (json.peek() == JsonToken.END_DOCUMENT)
+      {
+        return null;
+      }
+
+      return readTweet(json);
+    }
+    catch (IllegalStateException e)
+    {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+
+  /**
+   * Parses a single JSON encoded Tweet.
+   *
+   * @throws JsonSyntaxException
+   *           If the line is not a valid JSON object.
+   */
+  public static Tweet parse(final String line)
+  {
+    try (TweetReader reader = new TweetReader(new StringReader(line)))
+    {
+      return reader.next();
+    }
+    catch (IOException e)
+    {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+
+  /**
+   * Reads a Tweet object from the current position of the given JSON reader.
+   */
+  private static Tweet readTweet(final JsonReader json)
+    throws IOException
+  {
+    long id = 0;
+    String timestampMs = null;
+    List<TweetHashMention> hashtags = null;
+
+    json.beginObject();
+    while (json.hasNext())
+    {
+      final String name = json.nextName();
+
+      if (json.peek() == JsonToken.NULL)
+      {
+        json.skipValue();
+      }
+      else if (name.equals("id"))
+      {
+        id = json.nextLong();
+      }
+      else if (name.equals("timestamp_ms"))
+      {
+        timestampMs = json.nextString();
+      }
+      else if (name.equals("entities"))
+      {
+        hashtags = readEntities(json);
+      }
+      else
+      {
+        json.skipValue();
+      }
+    }
+    json.endObject();
+
+    if (hashtags == null)
+    {
+      hashtags = new ArrayList<>(0);
+    }
+
+    return new Tweet(id, timestampMs, new TweetEntities(hashtags));
+  }
+
+
+  /**
+   * Reads the hashtag mentions of an <code>entities</code> object. Returns null if the object contains no hashtags.
+   */
+  private static List<TweetHashMention> readEntities(final JsonReader json)
+    throws IOException
+  {
+    List<TweetHashMention> hashtags = null;
+
+    json.beginObject();
+    while (json.hasNext())
+    {
+      if (json.nextName().equals("hashtags") && json.peek() == JsonToken.BEGIN_ARRAY)
+      {
+        hashtags = new ArrayList<>();
+
+        json.beginArray();
+        while (json.hasNext())
+        {
+          final String text = readHashtagText(json);
+          if (text != null)
+          {
+            hashtags.add(new TweetHashMention(text));
+          }
+        }
+        json.endArray();
+      }
+      else
+      {
+        json.skipValue();
+      }
+    }
+    json.endObject();
+
+    return hashtags;
+  }
+
+
+  /**
+   * Reads the <code>text</code> of a single hashtag mention or null, if there is none.
+   */
+  private static String readHashtagText(final JsonReader json)
+    throws IOException
+  {
+    if (json.peek() != JsonToken.BEGIN_OBJECT)
+    {
+      json.skipValue();
+      return null;
+    }
+
+    String text = null;
+
+    json.beginObject();
+    while (json.hasNext())
+    {
+      if (json.nextName().equals("text") && json.peek() == JsonToken.STRING)
+      {
+        text = json.nextString();
+      }
+      else
+      {
+        json.skipValue();
+      }
+    }
+    json.endObject();
+
+    return text;
+  }
+
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    json.close();
+  }
+
+}
@@ -0,0 +1,507 @@
+package de.l3s.lsdmproject.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonSyntaxException;
+
+
+/**
+ * Scans a UTF-8 encoded JSON Tweet directly on its bytes.<br />
+ * Only the top-level <code>id</code> and <code>timestamp_ms</code> and the positions of the top-level
+ * <code>entities.hashtags[].text</code> values are extracted. Everything else (including nested Tweets like
+ * <code>retweeted_status</code>) is skipped by matching brackets and quotes, so no Strings are decoded while scanning.
+ *
+ * @author Sebastian
+ *
+ */
+public class TweetScanner
+{
+
+  private static final byte[] KEY_ID = { 'i', 'd' };
+  private static final byte[] KEY_TIMESTAMP = { 't', 'i', 'm', 'e', 's', 't', 'a', 'm', 'p', '_', 'm', 's' };
+  private static final byte[] KEY_ENTITIES = { 'e', 'n', 't', 'i', 't', 'i', 'e', 's' };
+  private static final byte[] KEY_HASHTAGS = { 'h', 'a', 's', 'h', 't', 'a', 'g', 's' };
+  private static final byte[] KEY_TEXT = { 't', 'e', 'x', 't' };
+
+
+  private TweetScanner()
+  {
+  }
+
+
+  /**
+   * Scans the line from begin (inclusive) to end (exclusive) into the given (reusable) result.
+   *
+   * @throws JsonSyntaxException
+   *           If the line is not a JSON object.
+   */
+  public static void scan(final ByteBuffer buffer, final int begin, final int end, final ScannedTweet tweet)
+  {
+    tweet.reset(buffer);
+
+    try
+    {
+      int pos = skipWhitespace(buffer, begin, end);
+      expect(buffer, pos, end, '{');
+      pos = skipWhitespace(buffer, pos + 1, end);
+
+      if (buffer.get(pos) == '}')
+      {
+        return;
+      }
+
+      while (true)
+      {
+        expect(buffer, pos, end, '"');
+        final int keyEnd = findStringEnd(buffer, pos + 1, end);
+        final int keyBegin = pos + 1;
+
+        pos = skipWhitespace(buffer, keyEnd + 1, end);
+        expect(buffer, pos, end, ':');
+        pos = skipWhitespace(buffer, pos + 1, end);
+
+        final byte first = buffer.get(pos);
+        if (isKey(buffer, keyBegin, keyEnd, KEY_ID) && (first == '-' || isDigit(first)))
+        {
+          pos = scanId(buffer, pos, end, tweet);
+        }
+        else if (isKey(buffer, keyBegin, keyEnd, KEY_TIMESTAMP) && first != 'n')
+        {
+          pos = scanTimestamp(buffer, pos, end, tweet);
+        }
+        else if (isKey(buffer, keyBegin, keyEnd, KEY_ENTITIES) && first == '{')
+        {
+          pos = scanEntities(buffer, pos, end, tweet);
+        }
+        else
+        {
+          pos = skipValue(buffer, pos, end);
+        }
+
+        pos = skipWhitespace(buffer, pos, end);
+        if (buffer.get(pos) == ',')
+        {
+          pos = skipWhitespace(buffer, pos + 1, end);
+        }
+        else
+        {
+          expect(buffer, pos, end, '}');
+          return;
+        }
+      }
+    }
+    catch (IndexOutOfBoundsException e)
+    {
+      throw new JsonSyntaxException("Unexpected end of line at position " + end + ".", e);
+    }
+  }
+
+
+  private static int scanId(final ByteBuffer buffer, final int begin, final int end, final ScannedTweet tweet)
+  {
+    int pos = begin;
+    final boolean negative = buffer.get(pos) == '-';
+    if (negative)
+    {
+      pos++;
+    }
+
+    long id = 0;
+    while (pos < end && isDigit(buffer.get(pos)))
+    {
+      id = id * 10 + (buffer.get(pos) - '0');
+      pos++;
+    }
+
+    tweet.setId(negative ? -id : id);
+
+    // Skip fractions and exponents, if any
+    return skipValue(buffer, pos, end);
+  }
+
+
+  private static int scanTimestamp(final ByteBuffer buffer, final int begin, final int end, final ScannedTweet tweet)
+  {
+    final boolean quoted = buffer.get(begin) == '"';
+    final int valueBegin = quoted ? begin + 1 : begin;
+    final int valueEnd = quoted ? findStringEnd(buffer, valueBegin, end) : skipValue(buffer, begin, end);
+
+    long timestamp = 0;
+    for (int pos = valueBegin; pos < valueEnd; pos++)
+    {
+      final byte b = buffer.get(pos);
+      if (!isDigit(b))
+      {
+        throw new NumberFormatException("Invalid timestamp: " + decodeString(buffer, valueBegin, valueEnd));
+      }
+
+      timestamp = timestamp * 10 + (b - '0');
+    }
+
+    if (valueEnd > valueBegin)
+    {
+      tweet.setTimestampMs(timestamp);
+    }
+
+    return quoted ? valueEnd + 1 : valueEnd;
+  }
+
+
+  /**
+   * Scans the entities object for hashtag mentions.
+   */
+  private static int scanEntities(final ByteBuffer buffer, final int begin, final int end, final ScannedTweet tweet)
+  {
+    int pos = skipWhitespace(buffer, begin + 1, end);
+    if (buffer.get(pos) == '}')
+    {
+      return pos + 1;
+    }
+
+    while (true)
+    {
+      expect(buffer, pos, end, '"');
+      final int keyEnd = findStringEnd(buffer, pos + 1, end);
+      final boolean hashtags = isKey(buffer, pos + 1, keyEnd, KEY_HASHTAGS);
+
+      pos = skipWhitespace(buffer, keyEnd + 1, end);
+      expect(buffer, pos, end, ':');
+      pos = skipWhitespace(buffer, pos + 1, end);
+
+      if (hashtags && buffer.get(pos) == '[')
+      {
+        pos = scanHashtags(buffer, pos, end, tweet);
+      }
+      else
+      {
+        pos = skipValue(buffer, pos, end);
+      }
+
+      pos = skipWhitespace(buffer, pos, end);
+      if (buffer.get(pos) == ',')
+      {
+        pos = skipWhitespace(buffer, pos + 1, end);
+      }
+      else
+      {
+        expect(buffer, pos, end, '}');
+        return pos + 1;
+      }
+    }
+  }
+
+
+  /**
+   * Scans the array of hashtag mentions and records the positions of their texts.
+   */
+  private static int scanHashtags(final ByteBuffer buffer, final int begin, final int end, final ScannedTweet tweet)
+  {
+    int pos = skipWhitespace(buffer, begin + 1, end);
+    if (buffer.get(pos) == ']')
+    {
+      return pos + 1;
+    }
+
+    while (true)
+    {
+      if (buffer.get(pos) == '{')
+      {
+        pos = scanHashtag(buffer, pos, end, tweet);
+      }
+      else
+      {
+        pos = skipValue(buffer, pos, end);
+      }
+
+      pos = skipWhitespace(buffer, pos, end);
+      if (buffer.get(pos) == ',')
+      {
+        pos = skipWhitespace(buffer, pos + 1, end);
+      }
+      else
+      {
+        expect(buffer, pos, end, ']');
+        return pos + 1;
+      }
+    }
+  }
+
+
+  /**
+   * Scans a single hashtag mention object for its text.
+   */
+  private static int scanHashtag(final ByteBuffer buffer, final int begin, final int end, final ScannedTweet tweet)
+  {
+    int pos = skipWhitespace(buffer, begin + 1, end);
+    if (buffer.get(pos) == '}')
+    {
+      return pos + 1;
+    }
+
+    while (true)
+    {
+      expect(buffer, pos, end, '"');
+      final int keyEnd = findStringEnd(buffer, pos + 1, end);
+      final boolean text = isKey(buffer, pos + 1, keyEnd, KEY_TEXT);
+
+      pos = skipWhitespace(buffer, keyEnd + 1, end);
+      expect(buffer, pos, end, ':');
+      pos = skipWhitespace(buffer, pos + 1, end);
+
+      if (text && buffer.get(pos) == '"')
+      {
+        final int textEnd = findStringEnd(buffer, pos + 1, end);
+        tweet.addHashtag(pos + 1, textEnd);
+        pos = textEnd + 1;
+      }
+      else
+      {
+        pos = skipValue(buffer, pos, end);
+      }
+
+      pos = skipWhitespace(buffer, pos, end);
+      if (buffer.get(pos) == ',')
+      {
+        pos = skipWhitespace(buffer, pos + 1, end);
+      }
+      else
+      {
+        expect(buffer, pos, end, '}');
+        return pos + 1;
+      }
+    }
+  }
+
+
+  /**
+   * Returns the position right after the value starting at the given position.
+   */
+  static int skipValue(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final byte first = buffer.get(begin);
+
+    if (first == '"')
+    {
+      return findStringEnd(buffer, begin + 1, end) + 1;
+    }
+    else if (first == '{' || first == '[')
+    {
+      int depth = 0;
+      int pos = begin;
+      while (pos < end)
+      {
+        final byte b = buffer.get(pos);
+        if (b == '"')
+        {
+          pos = findStringEnd(buffer, pos + 1, end);
+        }
+        else if (b == '{' || b == '[')
+        {
+          depth++;
+        }
+        else if (b == '}' || b == ']')
+        {
+          depth--;
+          if (depth == 0)
+          {
+            return pos + 1;
+          }
+        }
+        pos++;
+      }
+
+      throw new JsonSyntaxException("Unterminated " + (first == '{' ? "object" : "array") + " at position " + begin + ".");
+    }
+    else
+    {
+      // Number, boolean or null literal
+      int pos = begin;
+      while (pos < end)
+      {
+        final byte b = buffer.get(pos);
+        if (b == ',' || b == '}' || b == ']' || isWhitespace(b))
+        {
+          break;
+        }
+        pos++;
+      }
+
+      return pos;
+    }
+  }
+
+
+  /**
+   * Returns the position of the closing quote of a string whose content begins at the given position.
+   */
+  static int findStringEnd(final ByteBuffer buffer, final int begin, final int end)
+  {
+    int pos = begin;
+    while (pos < end)
+    {
+      final byte b = buffer.get(pos);
+      if (b == '"')
+      {
+        return pos;
+      }
+      else if (b == '\\')
+      {
+        // Skip the escaped character
+        pos++;
+      }
+      pos++;
+    }
+
+    throw new JsonSyntaxException("Unterminated string at position " + begin + ".");
+  }
+
+
+  /**
+   * Decodes the content of a JSON string (without quotes) into a Java String, resolving all escape sequences.
+   */
+  public static String decodeString(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final StringBuilder decoded = new StringBuilder(end - begin);
+    final byte[] raw = new byte[end - begin];
+
+    int rawLength = 0;
+    int pos = begin;
+    while (pos < end)
+    {
+      final byte b = buffer.get(pos);
+      if (b != '\\')
+      {
+        raw[rawLength++] = b;
+        pos++;
+        continue;
+      }
+
+      // Flush the unescaped bytes before the escape sequence
+      decoded.append(new String(raw, 0, rawLength, StandardCharsets.UTF_8));
+      rawLength = 0;
+
+      final byte escaped = buffer.get(pos + 1);
+      switch (escaped)
+      {
+        case 'u':
+          decoded.append((char) Integer.parseInt(decodeAscii(buffer, pos + 2, pos + 6), 16));
+          pos += 6;
+          break;
+        case 'b':
+          decoded.append('\b');
+          pos += 2;
+          break;
+        case 'f':
+          decoded.append('\f');
+          pos += 2;
+          break;
+        case 'n':
+          decoded.append('\n');
+          pos += 2;
+          break;
+        case 'r':
+          decoded.append('\r');
+          pos += 2;
+          break;
+        case 't':
+          decoded.append('\t');
+          pos += 2;
+          break;
+        default:
+          // Quotes, slashes and backslashes
+          decoded.append((char) escaped);
+          pos += 2;
+          break;
+      }
+    }
+
+    decoded.append(new String(raw, 0, rawLength, StandardCharsets.UTF_8));
+
+    return decoded.toString();
+  }
+
+
+  /**
+   * Returns whether the given range of a JSON string contains neither escape sequences nor non-ASCII characters.
+   */
+  public static boolean isPlainAscii(final ByteBuffer buffer, final int begin, final int end)
+  {
+    for (int i = begin; i < end; i++)
+    {
+      final byte b = buffer.get(i);
+      // Non-ASCII bytes are negative
+      if (b < 0 || b == '\\')
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  private static String decodeAscii(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final char[] chars = new char[end - begin];
+    for (int i = begin; i < end; i++)
+    {
+      chars[i - begin] = (char) buffer.get(i);
+    }
+
+    return new String(chars);
+  }
+
+
+  private static boolean isKey(final ByteBuffer buffer, final int begin, final int end, final byte[] key)
+  {
+    if (end - begin != key.length)
+    {
+      return false;
+    }
+
+    for (int i = 0; i < key.length; i++)
+    {
+      if (buffer.get(begin + i) != key[i])
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  private static void expect(final ByteBuffer buffer, final int pos, final int end, final char expected)
+  {
+    if (pos >= end || buffer.get(pos) != expected)
+    {
+      throw new JsonSyntaxException("Expected '" + expected + "' at position " + pos + ".");
+    }
+  }
+
+
+  private static int skipWhitespace(final ByteBuffer buffer, final int begin, final int end)
+  {
+    int pos = begin;
+    while (pos < end && isWhitespace(buffer.get(pos)))
+    {
+      pos++;
+    }
+
+    return pos;
+  }
+
+
+  private static boolean isWhitespace(final byte b)
+  {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+
+  private static boolean isDigit(final byte b)
+  {
+    return b >= '0' && b <= '9';
+  }
+
+}
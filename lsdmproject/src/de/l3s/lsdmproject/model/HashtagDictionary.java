@@ -0,0 +1,256 @@
+package de.l3s.lsdmproject.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+
+/**
+ * Assigns dense integer ids (0, 1, 2, ...) to hashtags.<br />
+ * In case-insensitive mode, hashtags are interned by a canonical form, so that two hashtags get the same id iff they are equal
+ * according to {@link String#equalsIgnoreCase(String)}. Hashtags consisting of ASCII characters only can also be looked up
+ * directly from their UTF-8 bytes, without decoding them into a String first.
+ *
+ * @author Sebastian
+ *
+ */
+public class HashtagDictionary
+{
+
+  private final boolean caseInsensitive;
+
+  private final HashMap<String, Integer> ids = new HashMap<>();
+
+  private final ArrayList<String> hashtags = new ArrayList<>();
+
+  /**
+   * Canonical bytes of ASCII hashtags, indexed by id (null for other hashtags).
+   */
+  private byte[][] asciiHashtags = new byte[16][];
+
+  /**
+   * Open addressing table of ASCII hashtags. Stores id + 1, 0 marks an empty slot.
+   */
+  private int[] asciiTable = new int[32];
+
+  private int asciiCount = 0;
+
+
+  public HashtagDictionary(final boolean caseInsensitive)
+  {
+    this.caseInsensitive = caseInsensitive;
+  }
+
+
+  public boolean isCaseInsensitive()
+  {
+    return caseInsensitive;
+  }
+
+
+  /**
+   * Returns the number of interned hashtags.
+   */
+  public int size()
+  {
+    return hashtags.size();
+  }
+
+
+  /**
+   * Returns the canonical form of the hashtag with the given id.
+   */
+  public String getHashtag(final int id)
+  {
+    return hashtags.get(id);
+  }
+
+
+  /**
+   * Returns the id of the given hashtag. Unknown hashtags are added to the dictionary.
+   */
+  public int intern(final String hashtag)
+  {
+    final String canonical = canonicalize(hashtag);
+    final Integer id = ids.get(canonical);
+    if (id != null)
+    {
+      return id;
+    }
+
+    final int newId = hashtags.size();
+    ids.put(canonical, newId);
+    hashtags.add(canonical);
+
+    if (isAscii(canonical))
+    {
+      addAscii(newId, canonical);
+    }
+
+    return newId;
+  }
+
+
+  /**
+   * Returns the id of the given hashtag or -1, if it is not contained.
+   */
+  public int lookup(final String hashtag)
+  {
+    final Integer id = ids.get(canonicalize(hashtag));
+    return id == null ? -1 : id;
+  }
+
+
+  /**
+   * Returns the id of the hashtag encoded in the given range or -1, if it is not contained. The range must contain ASCII
+   * characters only.
+   */
+  public int lookupAscii(final ByteBuffer buffer, final int begin, final int end)
+  {
+    final int mask = asciiTable.length - 1;
+    int slot = hashAscii(buffer, begin, end) & mask;
+
+    while (asciiTable[slot] != 0)
+    {
+      final int id = asciiTable[slot] - 1;
+      if (equalsAscii(buffer, begin, end, asciiHashtags[id]))
+      {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    return -1;
+  }
+
+
+  /**
+   * Returns the form of the hashtag used for interning. In case-insensitive mode, each character is mapped to the lower case of
+   * its upper case, which is exactly the equivalence used by {@link String#equalsIgnoreCase(String)}.
+   */
+  public String canonicalize(final String hashtag)
+  {
+    if (!caseInsensitive)
+    {
+      return hashtag;
+    }
+
+    final char[] chars = hashtag.toCharArray();
+    for (int i = 0; i < chars.length; i++)
+    {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+
+    return new String(chars);
+  }
+
+
+  private void addAscii(final int id, final String canonical)
+  {
+    if (id >= asciiHashtags.length)
+    {
+      asciiHashtags = Arrays.copyOf(asciiHashtags, 2 * id);
+    }
+
+    final byte[] bytes = new byte[canonical.length()];
+    for (int i = 0; i < bytes.length; i++)
+    {
+      bytes[i] = (byte) canonical.charAt(i);
+    }
+    asciiHashtags[id] = bytes;
+
+    // Keep the load factor of the table below 0.5
+    asciiCount++;
+    if (2 * asciiCount > asciiTable.length)
+    {
+      asciiTable = new int[2 * asciiTable.length];
+      for (int i = 0; i < asciiHashtags.length; i++)
+      {
+        if (asciiHashtags[i] != null)
+        {
+          insertAscii(i);
+        }
+      }
+    }
+    else
+    {
+      insertAscii(id);
+    }
+  }
+
+
+  private void insertAscii(final int id)
+  {
+    final byte[] bytes = asciiHashtags[id];
+    final int mask = asciiTable.length - 1;
+    int slot = hashAscii(ByteBuffer.wrap(bytes), 0, bytes.length) & mask;
+
+    while (asciiTable[slot] != 0)
+    {
+      slot = (slot + 1) & mask;
+    }
+
+    asciiTable[slot] = id + 1;
+  }
+
+
+  /**
+   * FNV-1a hash of the (case folded) bytes.
+   */
+  private int hashAscii(final ByteBuffer buffer, final int begin, final int end)
+  {
+    int hash = 0x811C9DC5;
+    for (int i = begin; i < end; i++)
+    {
+      hash ^= fold(buffer.get(i));
+      hash *= 0x01000193;
+    }
+
+    // Spread the bits for the power of two table
+    return hash ^ (hash >>> 16);
+  }
+
+
+  private boolean equalsAscii(final ByteBuffer buffer, final int begin, final int end, final byte[] hashtag)
+  {
+    if (end - begin != hashtag.length)
+    {
+      return false;
+    }
+
+    for (int i = 0; i < hashtag.length; i++)
+    {
+      if (fold(buffer.get(begin + i)) != hashtag[i])
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Folds upper case ASCII characters to lower case in case-insensitive mode.
+   */
+  private byte fold(final byte b)
+  {
+    return caseInsensitive && b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+  }
+
+
+  private static boolean isAscii(final String hashtag)
+  {
+    for (int i = 0; i < hashtag.length(); i++)
+    {
+      if (hashtag.charAt(i) > 127)
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+}
@@ -1,16 +1,22 @@
-package de.l3s.lsdmproject.model;
-
-import java.util.List;
-
-
-public class TweetEntities
-{
-
-  private List<TweetHashMention> hashtags;
-
-
-  public List<TweetHashMention> getHashtags()
-  {
-    return hashtags;
-  }
-}
+package de.l3s.lsdmproject.model;
+
+import java.util.List;
+
+
+public class TweetEntities
+{
+
+  private List<TweetHashMention> hashtags;
+
+
+  public TweetEntities(final List<TweetHashMention> hashtags)
+  {
+    this.hashtags = hashtags;
+  }
+
+
+  public List<TweetHashMention> getHashtags()
+  {
+    return hashtags;
+  }
+}
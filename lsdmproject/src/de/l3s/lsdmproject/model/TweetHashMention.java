@@ -1,13 +1,19 @@
-package de.l3s.lsdmproject.model;
-
-public class TweetHashMention
-{
-
-  private String text;
-
-
-  public String getHashtag()
-  {
-    return text;
-  }
-}
+package de.l3s.lsdmproject.model;
+
+public class TweetHashMention
+{
+
+  private String text;
+
+
+  public TweetHashMention(final String text)
+  {
+    this.text = text;
+  }
+
+
+  public String getHashtag()
+  {
+    return text;
+  }
+}
@@ -0,0 +1,69 @@
+package de.l3s.lsdmproject.monitor;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Writes the estimates of standing queries to a CSV file with the columns time, hashtag, k and estimate.
+ *
+ * @author Sebastian
+ *
+ */
+public class CsvSink
+  implements EstimateSink, Closeable
+{
+
+  private final Writer writer;
+
+
+  public CsvSink(final File file)
+    throws IOException
+  {
+    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    writer.write("time,hashtag,k,estimate\n");
+  }
+
+
+  @Override
+  public void emit(final StandingQuery query, final long time, final long estimate)
+  {
+    try
+    {
+      writer.write(time + "," + escape(query.getName()) + "," + query.getK() + "," + estimate + "\n");
+    }
+    catch (IOException e)
+    {
+      throw new IllegalStateException("Writing estimate failed.", e);
+    }
+  }
+
+
+  /**
+   * Quotes a value, if it contains characters with a special meaning in CSV.
+   */
+  private static String escape(final String value)
+  {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+    {
+      return value;
+    }
+
+    return "\"" + value.replace("\"", "\"\"") + "\"";
+  }
+
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    writer.close();
+  }
+
+}
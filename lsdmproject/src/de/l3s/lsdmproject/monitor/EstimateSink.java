@@ -0,0 +1,23 @@
+package de.l3s.lsdmproject.monitor;
+
+/**
+ * Receives the estimates of {@link StandingQuery}s while the stream is ingested, e.g. to print them, write them to a file or
+ * update a live chart.
+ *
+ * @author Sebastian
+ *
+ */
+public interface EstimateSink
+{
+
+  /**
+   * Handles an estimate of a standing query.
+   *
+   * @param time
+   *          Time of the stream clock the estimate refers to.
+   * @param estimate
+   *          Estimated count of 1's within the latest k elements of the query.
+   */
+  void emit(StandingQuery query, long time, long estimate);
+
+}
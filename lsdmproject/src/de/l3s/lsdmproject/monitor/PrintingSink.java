@@ -0,0 +1,44 @@
+package de.l3s.lsdmproject.monitor;
+
+import java.io.PrintStream;
+
+
+/**
+ * Prints the estimates of standing queries, one line per estimate.
+ *
+ * @author Sebastian
+ *
+ */
+public class PrintingSink
+  implements EstimateSink
+{
+
+  private final PrintStream out;
+
+  private final String unit;
+
+
+  public PrintingSink()
+  {
+    this(System.out, "milliseconds");
+  }
+
+
+  /**
+   * @param unit
+   *          Unit of the windows, e.g. milliseconds.
+   */
+  public PrintingSink(final PrintStream out, final String unit)
+  {
+    this.out = out;
+    this.unit = unit;
+  }
+
+
+  @Override
+  public void emit(final StandingQuery query, final long time, final long estimate)
+  {
+    out.println("[" + time + "] Count #" + query.getName() + " @ T-" + query.getK() + " " + unit + ": " + estimate);
+  }
+
+}
@@ -0,0 +1,75 @@
+package de.l3s.lsdmproject.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.l3s.lsdmproject.dgim.SlidingWindowCounter;
+
+
+/**
+ * The standing queries of a stream. The stream advances them once per item, but only the time of the earliest emission is checked
+ * until it is due.
+ *
+ * @author Sebastian
+ *
+ */
+public class StandingQueries
+{
+
+  private final ArrayList<StandingQuery> queries = new ArrayList<>();
+
+  /**
+   * Earliest emission of all queries, new queries have to be scheduled first.
+   */
+  private long nextEmission = Long.MAX_VALUE;
+
+
+  /**
+   * Registers a query emitting the count of 1's within the latest k elements of a counter every interval.
+   */
+  public StandingQuery register(final String name, final SlidingWindowCounter counter, final long k, final long interval,
+      final EstimateSink sink)
+  {
+    final StandingQuery query = new StandingQuery(name, counter, k, interval, sink);
+    queries.add(query);
+    nextEmission = Long.MIN_VALUE;
+
+    return query;
+  }
+
+
+  /**
+   * Emits the estimates of all queries that are due.
+   *
+   * @param time
+   *          Current time of the stream clock.
+   */
+  public void advance(final long time)
+  {
+    if (time < nextEmission)
+    {
+      return;
+    }
+
+    long earliest = Long.MAX_VALUE;
+    for (StandingQuery query : queries)
+    {
+      earliest = Math.min(earliest, query.advance(time));
+    }
+    nextEmission = earliest;
+  }
+
+
+  public List<StandingQuery> getQueries()
+  {
+    return Collections.unmodifiableList(queries);
+  }
+
+
+  public boolean isEmpty()
+  {
+    return queries.isEmpty();
+  }
+
+}
@@ -0,0 +1,132 @@
+package de.l3s.lsdmproject.monitor;
+
+import de.l3s.lsdmproject.dgim.SlidingWindowCounter;
+
+
+/**
+ * A count of 1's within the latest k elements of a counter, that is emitted to a sink in a fixed interval of the stream clock
+ * while the stream is ingested.<br />
+ * Emissions are due at multiples of the interval and happen as soon as the clock reaches them. Each emission counts the window
+ * anew (see {@link SlidingWindowCounter#count(long)}), from the newest bucket up to the first one that is not completely within
+ * the window. Thus, it traverses the buckets within the window and one more, i.e. O(r log(m)) buckets for m 1's within the window,
+ * regardless of the maximum length n of the counter. Concurrent counters count each stripe that way, without copying its buckets.
+ * The estimate is not updated from the previous one, as the 1's that left the window in the meantime would have to be found in
+ * the buckets at its end, which are reached from the newest bucket only.
+ *
+ * @author Sebastian
+ *
+ */
+public class StandingQuery
+{
+
+  /**
+   * The first emission is scheduled as soon as the clock is known.
+   */
+  private static final long UNSCHEDULED = Long.MIN_VALUE;
+
+  private final String name;
+
+  private final SlidingWindowCounter counter;
+
+  private final long k;
+
+  private final long interval;
+
+  private final EstimateSink sink;
+
+  private long nextEmission = UNSCHEDULED;
+
+  private long emissionCount = 0;
+
+
+  /**
+   * @param k
+   *          Number of elements to consider, at most the maximum length n of the counter.
+   * @param interval
+   *          Time between two emissions.
+   */
+  public StandingQuery(final String name, final SlidingWindowCounter counter, final long k, final long interval,
+      final EstimateSink sink)
+  {
+    if (k < 1)
+    {
+      throw new IllegalArgumentException("Value of k must be greater than or equal to 1.");
+    }
+    else if (interval < 1)
+    {
+      throw new IllegalArgumentException("Emit interval must be greater than or equal to 1.");
+    }
+
+    this.name = name;
+    this.counter = counter;
+    this.k = k;
+    this.interval = interval;
+    this.sink = sink;
+  }
+
+
+  /**
+   * Emits the estimate, if the clock has reached the next emission.
+   *
+   * @param time
+   *          Current time of the stream clock.
+   * @return Time of the next emission.
+   */
+  public long advance(final long time)
+  {
+    if (time >= nextEmission)
+    {
+      if (nextEmission != UNSCHEDULED)
+      {
+        emit(time);
+      }
+      nextEmission = (time / interval + 1) * interval;
+    }
+
+    return nextEmission;
+  }
+
+
+  private void emit(final long time)
+  {
+    final long estimate = counter.count(k);
+    emissionCount++;
+
+    sink.emit(this, time, estimate);
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+
+
+  public long getK()
+  {
+    return k;
+  }
+
+
+  public long getInterval()
+  {
+    return interval;
+  }
+
+
+  /**
+   * Number of estimates emitted so far.
+   */
+  public long getEmissionCount()
+  {
+    return emissionCount;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "StandingQuery[" + name + " @ T-" + k + " every " + interval + "]";
+  }
+
+}